@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.Rectangle;
+
+import de.ralleytn.simple.image.internal.Parallel;
+
+/**
+ * Filter that turns the image black and white like {@linkplain MonochromeFilter}, but compares each pixel with the mean brightness of the pixels around it
+ * instead of a fixed threshold. This keeps text and lines readable on images with uneven lighting, like photos of documents.
+ * A pixel becomes black if its brightness is at most the mean of the square around it, reduced by the given threshold. Otherwise it becomes white.
+ * The mean is taken from an {@linkplain IntegralImage}, so the time needed does not depend on the radius.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class AdaptiveThresholdFilter extends Filter {
+	
+	private final int radius;
+	private final float threshold;
+	
+	/**
+	 * Creates a filter that turns pixels black that are at least 15% darker than the mean around them.
+	 * @param radius radius of the square that the mean is taken from
+	 * @throws IllegalArgumentException if the radius is negative
+	 * @since 1.2.0
+	 */
+	public AdaptiveThresholdFilter(int radius) throws IllegalArgumentException {
+		
+		this(radius, 0.15F);
+	}
+	
+	/**
+	 * @param radius radius of the square that the mean is taken from
+	 * @param threshold by how much darker than the mean a pixel has to be at least to turn black (0.0F - 1.0F)
+	 * @throws IllegalArgumentException if the radius is negative or the threshold is not between 0 and 1
+	 * @since 1.2.0
+	 */
+	public AdaptiveThresholdFilter(int radius, float threshold) throws IllegalArgumentException {
+		
+		if(radius < 0) {
+			
+			throw new IllegalArgumentException("The radius must not be negative!");
+		}
+		
+		if(!(threshold >= 0.0F && threshold <= 1.0F)) {
+			
+			throw new IllegalArgumentException("The threshold must be between 0 and 1!");
+		}
+		
+		this.radius = radius;
+		this.threshold = threshold;
+	}
+	
+	@Override
+	public void apply(int[][] source, int[][] target) {
+		
+		int imgWidth = source.length;
+		int imgHeight = source[0].length;
+		Rectangle bounds = this.getBounds();
+		int fromX = Math.max(0, bounds.x);
+		int toX = Math.min(imgWidth, bounds.x + bounds.width);
+		int fromY = Math.max(0, bounds.y);
+		int toY = Math.min(imgHeight, bounds.y + bounds.height);
+		int radius = this.radius;
+		int size = radius * 2 + 1;
+		double factor = 1.0D - this.threshold;
+		
+		for(int x = 0; x < imgWidth; x++) {
+			
+			System.arraycopy(source[x], 0, target[x], 0, imgHeight);
+		}
+		
+		if(fromX >= toX || fromY >= toY) {
+			
+			return;
+		}
+		
+		// Near the edges only the part of the square inside of the image is used for the mean
+		IntegralImage integral = new IntegralImage(source, new ColorChannel[] {ColorChannel.RED, ColorChannel.GREEN, ColorChannel.BLUE}, Parallel.DEFAULT_PARALLELISM);
+		
+		Parallel.run(toX - fromX, (long)(toX - fromX) * (toY - fromY), Parallel.DEFAULT_PARALLELISM, (from, to) -> {
+			
+			for(int x = fromX + from; x < fromX + to; x++) {
+				
+				int[] srcColumn = source[x];
+				int[] targetColumn = target[x];
+				
+				for(int y = fromY; y < toY; y++) {
+					
+					int srcPixel = srcColumn[y];
+					double brightness = (ColorUtils.getRed(srcPixel) + ColorUtils.getGreen(srcPixel) + ColorUtils.getBlue(srcPixel)) / 3.0D;
+					int color = brightness <= integral.mean(x - radius, y - radius, size, size) * factor ? 0 : 255;
+					
+					targetColumn[y] = ColorUtils.getARGB(color, color, color, ColorUtils.getAlpha(srcPixel));
+				}
+			}
+		});
+	}
+	
+	/**
+	 * @return the radius of the square that the mean is taken from
+	 * @since 1.2.0
+	 */
+	public int getRadius() {
+		
+		return this.radius;
+	}
+	
+	/**
+	 * @return by how much darker than the mean a pixel has to be to turn black
+	 * @since 1.2.0
+	 */
+	public float getThreshold() {
+		
+		return this.threshold;
+	}
+}
@@ -0,0 +1,512 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.Dimension;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Runs the same processing pipeline on a large number of image files in parallel.
+ * The files are processed on a work stealing pool. Before an image is decoded only its header is read
+ * in order to estimate how much memory it will need. An image is only admitted if the estimated memory of all
+ * images that are currently being processed stays within the memory budget. Results are first written to a
+ * temporary file which is then moved to its final location, so there never is a half written output file.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class BatchProcessor {
+	
+	// A decoded image lives in memory as BufferedImage and as int[][] at the same time,
+	// most pipelines create at least one more intermediate image of about the same size.
+	private static final int COPIES_PER_IMAGE = 3;
+	
+	private final UnaryOperator<SimpleImage> pipeline;
+	private String format;
+	private long memoryBudget;
+	private int parallelism;
+	
+	/**
+	 * @param pipeline the processing that should be done with each image
+	 * @since 1.2.0
+	 */
+	public BatchProcessor(UnaryOperator<SimpleImage> pipeline) {
+		
+		this.pipeline = pipeline;
+		this.format = "PNG";
+		this.memoryBudget = Runtime.getRuntime().maxMemory() / 2;
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+	}
+	
+	/**
+	 * Processes all files in a directory and its sub directories.
+	 * The directory structure is reproduced in the output directory.
+	 * Files that only differ in their extension would end up in the same output file. Only the first of them is processed,
+	 * the others are reported as failures.
+	 * @param inputDirectory the directory with the source images
+	 * @param outputDirectory the directory in which the results should be written
+	 * @return a report with the number of processed images and the time spent in each stage
+	 * @throws IOException if the input directory could not be read
+	 * @since 1.2.0
+	 */
+	public Report process(Path inputDirectory, Path outputDirectory) throws IOException {
+		
+		try(Stream<Path> files = Files.walk(inputDirectory)) {
+			
+			return this.process(files.filter(Files::isRegularFile), file -> outputDirectory.resolve(inputDirectory.relativize(file)));
+		}
+	}
+	
+	/**
+	 * Processes the given files. The results are written into the output directory with the same file names.
+	 * Files with the same name from different directories, or that only differ in their extension, would end up in the same output file.
+	 * Only the first of them is processed, the others are reported as failures.
+	 * @param files the source images
+	 * @param outputDirectory the directory in which the results should be written
+	 * @return a report with the number of processed images and the time spent in each stage
+	 * @since 1.2.0
+	 */
+	public Report process(Stream<Path> files, Path outputDirectory) {
+		
+		return this.process(files, file -> outputDirectory.resolve(file.getFileName()));
+	}
+	
+	private Report process(Stream<Path> files, UnaryOperator<Path> outputResolver) {
+		
+		Report report = new Report();
+		MemoryBudget budget = new MemoryBudget(this.memoryBudget);
+		ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+		String format = this.format;
+		long start = System.nanoTime();
+		
+		// Only used by the calling thread, which sees the files in order
+		Set<Path> outputs = new HashSet<>();
+		
+		try {
+			
+			files.forEach(file -> {
+				
+				Path resolved = outputResolver.apply(file);
+				Path output = resolved.resolveSibling(BatchProcessor.__replaceExtension(resolved.getFileName().toString(), format));
+				
+				// Replacing the existing file is only meant for results of earlier runs, not for results of the same run
+				if(!outputs.add(output.toAbsolutePath().normalize())) {
+					
+					report.failures.put(file, new IOException("The output file " + output + " would overwrite the result of another file!"));
+					return;
+				}
+				
+				// The header is read on the pool as well, the calling thread only hands out the files
+				pool.execute(() -> {
+					
+					long cost;
+					long stageStart = System.nanoTime();
+					
+					try {
+						
+						Dimension size = SimpleImage.probe(file);
+						cost = (long)size.width * size.height * Integer.BYTES * BatchProcessor.COPIES_PER_IMAGE;
+					
+					} catch(IOException | RuntimeException exception) {
+						
+						report.failures.put(file, exception);
+						return;
+					
+					} finally {
+						
+						report.record(Stage.PROBE, stageStart);
+					}
+					
+					budget.admit(cost, () -> {
+						
+						try {
+							
+							this.process(file, output, format, report);
+						
+						} catch(IOException | RuntimeException exception) {
+							
+							report.failures.put(file, exception);
+						
+						} finally {
+							
+							budget.release(cost, pool);
+						}
+					});
+				});
+			});
+			
+			pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		
+		} finally {
+			
+			pool.shutdown();
+		}
+		
+		report.wallTime = System.nanoTime() - start;
+		return report;
+	}
+	
+	private void process(Path file, Path output, String format, Report report) throws IOException {
+		
+		long stageStart = System.nanoTime();
+		SimpleImage image = new SimpleImage(file);
+		report.record(Stage.DECODE, stageStart);
+		
+		stageStart = System.nanoTime();
+		image = this.pipeline.apply(image);
+		report.record(Stage.PROCESS, stageStart);
+		
+		stageStart = System.nanoTime();
+		Path directory = output.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporary = Files.createTempFile(directory, ".batch", ".tmp");
+		
+		try {
+			
+			try(OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+				
+				image.write(outputStream, format);
+			}
+			
+			try {
+				
+				Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			
+			} catch(AtomicMoveNotSupportedException exception) {
+				
+				Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+			}
+		
+		} finally {
+			
+			Files.deleteIfExists(temporary);
+		}
+		
+		report.record(Stage.ENCODE, stageStart);
+		report.processed.increment();
+	}
+	
+	private static final String __replaceExtension(String fileName, String format) {
+		
+		int dot = fileName.lastIndexOf('.');
+		return (dot > 0 ? fileName.substring(0, dot) : fileName) + "." + format.toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Sets the format in which the results should be written. Default is PNG.
+	 * @param format the image format
+	 * @since 1.2.0
+	 */
+	public void setFormat(String format) {
+		
+		this.format = format;
+	}
+	
+	/**
+	 * Sets how many bytes of pixel data may be in flight at the same time. Default is half of the maximum heap size.
+	 * An image that is larger than the whole budget is still processed, but only when no other image is in flight.
+	 * @param memoryBudget the memory budget in bytes
+	 * @throws IllegalArgumentException if the budget is smaller than 1
+	 * @since 1.2.0
+	 */
+	public void setMemoryBudget(long memoryBudget) throws IllegalArgumentException {
+		
+		if(memoryBudget < 1) {
+			
+			throw new IllegalArgumentException("The memory budget must be at least 1 byte!");
+		}
+		
+		this.memoryBudget = memoryBudget;
+	}
+	
+	/**
+	 * Sets the number of threads that process images at the same time. Default is the number of available processors.
+	 * @param parallelism the number of threads
+	 * @throws IllegalArgumentException if the parallelism is smaller than 1
+	 * @since 1.2.0
+	 */
+	public void setParallelism(int parallelism) throws IllegalArgumentException {
+		
+		if(parallelism < 1) {
+			
+			throw new IllegalArgumentException("The parallelism must be at least 1!");
+		}
+		
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * @return the format in which the results are written
+	 * @since 1.2.0
+	 */
+	public String getFormat() {
+		
+		return this.format;
+	}
+	
+	/**
+	 * @return how many bytes of pixel data may be in flight at the same time
+	 * @since 1.2.0
+	 */
+	public long getMemoryBudget() {
+		
+		return this.memoryBudget;
+	}
+	
+	/**
+	 * @return the number of threads that process images at the same time
+	 * @since 1.2.0
+	 */
+	public int getParallelism() {
+		
+		return this.parallelism;
+	}
+	
+	/**
+	 * The stages every image goes through.
+	 * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+	 * @version 1.2.0
+	 * @since 1.2.0
+	 */
+	public static enum Stage {
+		
+		/**
+		 * Reading the image header.
+		 * @since 1.2.0
+		 */
+		PROBE,
+		
+		/**
+		 * Reading and decoding the image.
+		 * @since 1.2.0
+		 */
+		DECODE,
+		
+		/**
+		 * Running the pipeline.
+		 * @since 1.2.0
+		 */
+		PROCESS,
+		
+		/**
+		 * Encoding and writing the result.
+		 * @since 1.2.0
+		 */
+		ENCODE;
+	}
+	
+	/**
+	 * Contains the results of a batch run.
+	 * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+	 * @version 1.2.0
+	 * @since 1.2.0
+	 */
+	public static final class Report {
+		
+		private final LongAdder processed = new LongAdder();
+		private final LongAdder[] counts = new LongAdder[Stage.values().length];
+		private final LongAdder[] times = new LongAdder[Stage.values().length];
+		private final Map<Path, Exception> failures = new ConcurrentHashMap<>();
+		private long wallTime;
+		
+		private Report() {
+			
+			for(int index = 0; index < this.counts.length; index++) {
+				
+				this.counts[index] = new LongAdder();
+				this.times[index] = new LongAdder();
+			}
+		}
+		
+		private void record(Stage stage, long start) {
+			
+			this.counts[stage.ordinal()].increment();
+			this.times[stage.ordinal()].add(System.nanoTime() - start);
+		}
+		
+		/**
+		 * @return the number of images that were successfully processed
+		 * @since 1.2.0
+		 */
+		public long getProcessed() {
+			
+			return this.processed.sum();
+		}
+		
+		/**
+		 * @return the files that could not be processed together with the reason
+		 * @since 1.2.0
+		 */
+		public Map<Path, Exception> getFailures() {
+			
+			return Collections.unmodifiableMap(this.failures);
+		}
+		
+		/**
+		 * @param stage the stage
+		 * @return the number of images that went through the given stage
+		 * @since 1.2.0
+		 */
+		public long getCount(Stage stage) {
+			
+			return this.counts[stage.ordinal()].sum();
+		}
+		
+		/**
+		 * @param stage the stage
+		 * @return the time all threads together spent in the given stage in nanoseconds
+		 * @since 1.2.0
+		 */
+		public long getTime(Stage stage) {
+			
+			return this.times[stage.ordinal()].sum();
+		}
+		
+		/**
+		 * @param stage the stage
+		 * @return how many images per second a single thread handles in the given stage
+		 * @since 1.2.0
+		 */
+		public double getThroughput(Stage stage) {
+			
+			long time = this.getTime(stage);
+			return time > 0 ? this.getCount(stage) * 1_000_000_000.0D / time : 0.0D;
+		}
+		
+		/**
+		 * @return the time the whole batch took in nanoseconds
+		 * @since 1.2.0
+		 */
+		public long getWallTime() {
+			
+			return this.wallTime;
+		}
+		
+		@Override
+		public String toString() {
+			
+			StringBuilder builder = new StringBuilder();
+			builder.append(String.format(Locale.ROOT, "%d processed, %d failed in %.2f s%n", this.getProcessed(), this.failures.size(), this.wallTime / 1_000_000_000.0D));
+			
+			for(Stage stage : Stage.values()) {
+				
+				builder.append(String.format(Locale.ROOT, "%-8s %8d images %10.2f s %10.1f images/s per thread%n", stage, this.getCount(stage), this.getTime(stage) / 1_000_000_000.0D, this.getThroughput(stage)));
+			}
+			
+			return builder.toString();
+		}
+	}
+	
+	// Work that does not fit into the budget is queued instead of blocking a thread of the pool.
+	// The release that makes enough room hands it to the pool, so the pool always runs as many images as it has threads.
+	private static final class MemoryBudget {
+		
+		private final long capacity;
+		private final Deque<Admission> waiting = new ArrayDeque<>();
+		private long inFlight;
+		
+		private MemoryBudget(long capacity) {
+			
+			this.capacity = capacity;
+		}
+		
+		private void admit(long amount, Runnable task) {
+			
+			synchronized(this) {
+				
+				// Images are admitted in order, so that a large image is not overtaken forever by small ones
+				if(!this.waiting.isEmpty() || !this.fits(amount)) {
+					
+					this.waiting.add(new Admission(amount, task));
+					return;
+				}
+				
+				this.inFlight += amount;
+			}
+			
+			task.run();
+		}
+		
+		private void release(long amount, Executor executor) {
+			
+			List<Runnable> admitted = new ArrayList<>();
+			
+			synchronized(this) {
+				
+				this.inFlight -= amount;
+				
+				while(!this.waiting.isEmpty() && this.fits(this.waiting.peek().amount)) {
+					
+					Admission admission = this.waiting.poll();
+					this.inFlight += admission.amount;
+					admitted.add(admission.task);
+				}
+			}
+			
+			// Handed to the pool before this task ends, so the pool does not become quiescent in between
+			admitted.forEach(executor::execute);
+		}
+		
+		private boolean fits(long amount) {
+			
+			// An image that is larger than the whole budget is only admitted when no other image is in flight
+			return this.inFlight == 0 || this.inFlight + amount <= this.capacity;
+		}
+	}
+	
+	private static final class Admission {
+		
+		private final long amount;
+		private final Runnable task;
+		
+		private Admission(long amount, Runnable task) {
+			
+			this.amount = amount;
+			this.task = task;
+		}
+	}
+}
@@ -24,21 +24,32 @@
 
 package de.ralleytn.simple.image;
 
+import java.util.Arrays;
+
+import de.ralleytn.simple.image.internal.BoxBlur;
+import de.ralleytn.simple.image.internal.Parallel;
+
 /**
  * A box blur, (also known as a box linear filter) is a spatial domain linear filter in which each pixel
  * in the resulting image has a value equal to the average value of its neighboring pixels in the input
  * image. It is a form of low-pass ("blurring") filter.
+ * The average is kept as a running sum that is updated while the window slides over the image, so the time needed per pixel does not depend on the radius.
+ * Applying a box blur several times approximates a gaussian blur, which makes {@link #approximateGaussian(double)} a fast alternative to
+ * {@linkplain GaussianBlurFilter} for large blurs.
  * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
- * @version 1.0.0
+ * @version 1.2.0
  * @since 1.0.0
  */
 public class BoxBlurFilter extends ConvolutionFilter {
 	
+	private final int[] radii;
+	
 	/**
 	 * @param radius radius of the blur
+	 * @throws IllegalArgumentException if the radius is negative
 	 * @since 1.0.0
 	 */
-	public BoxBlurFilter(int radius) {
+	public BoxBlurFilter(int radius) throws IllegalArgumentException {
 		
 		this(radius, ConvolutionFilter.EDGE_GO_OVER);
 	}
@@ -46,27 +57,115 @@ public class BoxBlurFilter extends ConvolutionFilter {
 	/**
 	 * @param radius radius of the blue
 	 * @param edgeCondition what should happen when pixel outside the image are needed?
+	 * @throws IllegalArgumentException if the radius is negative
 	 * @since 1.0.0
 	 */
-	public BoxBlurFilter(int radius, int edgeCondition) {
+	public BoxBlurFilter(int radius, int edgeCondition) throws IllegalArgumentException {
 		
-		super(BoxBlurFilter.__calculateKernel(radius), edgeCondition);
+		this(radius, edgeCondition, 1);
 	}
-
-	private static final float[][] __calculateKernel(int radius) {
+	
+	/**
+	 * Creates a filter that applies the box blur multiple times in a row. The result is the same as applying a {@linkplain BoxBlurFilter} with one pass
+	 * on its own result again, except for rounding. Three passes come close to a gaussian blur with the standard deviation {@code sqrt(passes * radius * (radius + 1) / 3)}.
+	 * @param radius radius of the blur
+	 * @param edgeCondition what should happen when pixel outside the image are needed?
+	 * @param passes how often the blur is applied
+	 * @throws IllegalArgumentException if the radius is negative or there is less than one pass
+	 * @since 1.2.0
+	 */
+	public BoxBlurFilter(int radius, int edgeCondition, int passes) throws IllegalArgumentException {
+		
+		this(BoxBlurFilter.__repeat(radius, passes), edgeCondition);
+	}
+	
+	private BoxBlurFilter(int[] radii, int edgeCondition) {
+		
+		super(edgeCondition);
+		this.radii = radii;
+	}
+	
+	/**
+	 * Same as {@link #approximateGaussian(double, int)} with {@link ConvolutionFilter#EDGE_GO_OVER}.
+	 * @param sigma standard deviation of the gaussian blur in pixels
+	 * @return the filter
+	 * @throws IllegalArgumentException if the standard deviation is negative
+	 * @since 1.2.0
+	 */
+	public static BoxBlurFilter approximateGaussian(double sigma) throws IllegalArgumentException {
+		
+		return BoxBlurFilter.approximateGaussian(sigma, ConvolutionFilter.EDGE_GO_OVER);
+	}
+	
+	/**
+	 * Creates a filter that approximates a gaussian blur with any standard deviation by three box blurs.
+	 * The radii of the boxes are chosen so that their combined standard deviation comes as close as possible to the given one.
+	 * Unlike {@linkplain GaussianBlurFilter}, the time this filter needs does not grow with the size of the blur.
+	 * @param sigma standard deviation of the gaussian blur in pixels
+	 * @param edgeCondition what should happen when pixel outside the image are needed?
+	 * @return the filter
+	 * @throws IllegalArgumentException if the standard deviation is negative
+	 * @since 1.2.0
+	 */
+	public static BoxBlurFilter approximateGaussian(double sigma, int edgeCondition) throws IllegalArgumentException {
+		
+		if(!(sigma >= 0.0D)) {
+			
+			throw new IllegalArgumentException("The standard deviation must not be negative!");
+		}
+		
+		// A box of the width w has the variance (w^2 - 1) / 12 and the variances of the passes add up.
+		// The passes use the two odd widths around the ideal one, so many of the smaller one that the sum comes closest to sigma^2.
+		int passes = 3;
+		double variance = sigma * sigma;
+		int smaller = (int)Math.floor(Math.sqrt(12.0D * variance / passes + 1.0D));
+		
+		if(smaller % 2 == 0) {
+			
+			smaller--;
+		}
+		
+		long smallerPasses = Math.round((12.0D * variance - passes * smaller * (double)smaller - 4.0D * passes * smaller - 3.0D * passes) / (-4.0D * smaller - 4.0D));
+		int[] radii = new int[passes];
+		
+		for(int pass = 0; pass < passes; pass++) {
+			
+			radii[pass] = pass < smallerPasses ? (smaller - 1) / 2 : (smaller + 1) / 2;
+		}
+		
+		return new BoxBlurFilter(radii, edgeCondition);
+	}
+	
+	@Override
+	public void apply(int[][] source, int[][] target) {
+		
+		BoxBlur.blur(source, target, this.radii, this.getEdgeCondition(), this.getBounds(), Parallel.DEFAULT_PARALLELISM);
+	}
+	
+	/**
+	 * @return the radius of the box of each pass
+	 * @since 1.2.0
+	 */
+	public int[] getRadii() {
 		
-		int size = radius * 2 + 1;
-		float[][] kernel = new float[size][size];
-		float value = 1.0F / (size * size);
+		return this.radii.clone();
+	}
+	
+	private static final int[] __repeat(int radius, int passes) {
+		
+		if(radius < 0) {
+			
+			throw new IllegalArgumentException("The radius must not be negative!");
+		}
 		
-		for(int x = 0; x < size; x++) {
+		if(passes < 1) {
 			
-			for(int y = 0; y < size; y++) {
-				
-				kernel[x][y] = value;
-			}
+			throw new IllegalArgumentException("There must be at least one pass!");
 		}
 		
-		return kernel;
+		int[] radii = new int[passes];
+		Arrays.fill(radii, radius);
+		
+		return radii;
 	}
 }
@@ -26,12 +26,15 @@ package de.ralleytn.simple.image;
 
 import java.awt.Rectangle;
 
+import de.ralleytn.simple.image.internal.Parallel;
 import de.ralleytn.simple.image.internal.Utils;
 
 /**
  * Filter that applies a convolution matrix on an image.
+ * If the matrix is separable, meaning that it is the product of a column and a row like the ones of most blurs, it is applied
+ * as two one dimensional passes. A matrix of the size {@code n x n} then only needs {@code 2n} instead of {@code n^2} multiplications per pixel.
  * @author Ralph Niemitz/RalleYTN
- * @version 1.0.0
+ * @version 1.2.0
  * @since 1.0.0
  */
 public class ConvolutionFilter extends Filter {
@@ -65,9 +68,16 @@ public class ConvolutionFilter extends Filter {
 	 */
 	public static final int EDGE_CONTINUE = 4;
 	
+	// Relative difference up to which a matrix still counts as the product of a column and a row
+	private static final float SEPARABLE_TOLERANCE = 1.0E-5F;
+	
 	private float[][] kernel;
 	private int edgeCondition;
 	
+	// The two halves of a separable kernel, null if the kernel is not separable
+	private float[] horizontal;
+	private float[] vertical;
+	
 	/**
 	 * @param kernel the convolution matrix to use
 	 * @since 1.0.0
@@ -75,6 +85,7 @@ public class ConvolutionFilter extends Filter {
 	public ConvolutionFilter(float[][] kernel) {
 		
 		this.kernel = kernel;
+		this.__separate();
 	}
 	
 	/**
@@ -86,11 +97,122 @@ public class ConvolutionFilter extends Filter {
 		
 		this.kernel = kernel;
 		this.edgeCondition = edgeCondition;
+		this.__separate();
+	}
+	
+	/**
+	 * Creates a filter with a separable convolution matrix, which is the product of the two given kernels.
+	 * The image is first convolved with the horizontal kernel along each row and then with the vertical kernel along each column.
+	 * Both kernels should have an odd length, so that they have a center.
+	 * @param horizontal kernel for the X axis
+	 * @param vertical kernel for the Y axis
+	 * @since 1.2.0
+	 */
+	public ConvolutionFilter(float[] horizontal, float[] vertical) {
+		
+		this(horizontal, vertical, ConvolutionFilter.EDGE_GO_OVER);
+	}
+	
+	/**
+	 * Creates a filter with a separable convolution matrix, which is the product of the two given kernels.
+	 * The image is first convolved with the horizontal kernel along each row and then with the vertical kernel along each column.
+	 * Both kernels should have an odd length, so that they have a center.
+	 * @param horizontal kernel for the X axis
+	 * @param vertical kernel for the Y axis
+	 * @param edgeCondition what should happen when pixel outside the image are needed?
+	 * @since 1.2.0
+	 */
+	public ConvolutionFilter(float[] horizontal, float[] vertical, int edgeCondition) {
+		
+		this.kernel = new float[horizontal.length][vertical.length];
+		this.horizontal = horizontal.clone();
+		this.vertical = vertical.clone();
+		this.edgeCondition = edgeCondition;
+		
+		for(int x = 0; x < horizontal.length; x++) {
+			
+			for(int y = 0; y < vertical.length; y++) {
+				
+				this.kernel[x][y] = horizontal[x] * vertical[y];
+			}
+		}
+	}
+	
+	// For subclasses that do not convolve with a matrix and override apply(int[][], int[][])
+	ConvolutionFilter(int edgeCondition) {
+		
+		this.kernel = new float[0][0];
+		this.edgeCondition = edgeCondition;
+	}
+	
+	private void __separate() {
+		
+		int size = this.kernel.length;
+		
+		// Only square matrices are supported by the two dimensional path, so only they are split up
+		if(size == 0 || this.kernel[0].length != size) {
+			
+			return;
+		}
+		
+		// A matrix is separable if all of its columns are multiples of the column with the largest value
+		int pivotX = 0;
+		int pivotY = 0;
+		
+		for(int x = 0; x < size; x++) {
+			
+			for(int y = 0; y < size; y++) {
+				
+				if(Math.abs(this.kernel[x][y]) > Math.abs(this.kernel[pivotX][pivotY])) {
+					
+					pivotX = x;
+					pivotY = y;
+				}
+			}
+		}
+		
+		float pivot = this.kernel[pivotX][pivotY];
+		
+		if(pivot == 0.0F) {
+			
+			return;
+		}
+		
+		float[] horizontal = new float[size];
+		float[] vertical = new float[size];
+		
+		for(int index = 0; index < size; index++) {
+			
+			horizontal[index] = this.kernel[index][pivotY];
+			vertical[index] = this.kernel[pivotX][index] / pivot;
+		}
+		
+		float tolerance = Math.abs(pivot) * ConvolutionFilter.SEPARABLE_TOLERANCE;
+		
+		for(int x = 0; x < size; x++) {
+			
+			for(int y = 0; y < size; y++) {
+				
+				if(Math.abs(this.kernel[x][y] - horizontal[x] * vertical[y]) > tolerance) {
+					
+					return;
+				}
+			}
+		}
+		
+		this.horizontal = horizontal;
+		this.vertical = vertical;
 	}
 	
 	@Override
 	public void apply(int[][] source, int[][] target) {
 		
+		if(this.horizontal != null) {
+			
+			ConvolutionFilter.__applySeparable(source, target, this.horizontal, this.vertical, this.edgeCondition, this.getBounds());
+			return;
+		}
+		
 		int imgWidth = source.length;
 		int imgHeight = source[0].length;
 		int kernelWidth = this.kernel.length;
@@ -146,6 +268,127 @@ public class ConvolutionFilter extends Filter {
 		}
 	}
 	
+	private static final void __applySeparable(int[][] source, int[][] target, float[] horizontal, float[] vertical, int edgeCondition, Rectangle bounds) {
+		
+		int imgWidth = source.length;
+		int imgHeight = source[0].length;
+		int fromX = Math.max(0, bounds.x);
+		int toX = Math.min(imgWidth, bounds.x + bounds.width);
+		int fromY = Math.max(0, bounds.y);
+		int toY = Math.min(imgHeight, bounds.y + bounds.height);
+		
+		// Like in the two dimensional path, only the first 2 * center + 1 values of a kernel are used
+		int centerX = (horizontal.length - 1) / 2;
+		int centerY = (vertical.length - 1) / 2;
+		boolean wholeWindow = edgeCondition == ConvolutionFilter.EDGE_ZERO_FILL || edgeCondition == ConvolutionFilter.EDGE_FROM_SOURCE;
+		
+		// Pixels outside of the bounds keep their color
+		for(int x = 0; x < imgWidth; x++) {
+			
+			System.arraycopy(source[x], 0, target[x], 0, imgHeight);
+		}
+		
+		if(fromX >= toX || fromY >= toY) {
+			
+			return;
+		}
+		
+		// Rows that the vertical pass reads; with EDGE_REPEAT these can be on the other side of the image
+		int firstRow = edgeCondition == ConvolutionFilter.EDGE_REPEAT ? 0 : Math.max(0, fromY - centerY);
+		int lastRow = edgeCondition == ConvolutionFilter.EDGE_REPEAT ? imgHeight : Math.min(imgHeight, toY + centerY);
+		
+		Parallel.run(toX - fromX, (long)(toX - fromX) * (toY - fromY) * (horizontal.length + vertical.length), Parallel.DEFAULT_PARALLELISM, (from, to) -> {
+			
+			// The result of the horizontal pass for one column, reused for all columns of the band
+			float[] reds = new float[imgHeight];
+			float[] greens = new float[imgHeight];
+			float[] blues = new float[imgHeight];
+			
+			for(int x = fromX + from; x < fromX + to; x++) {
+				
+				int[] targetColumn = target[x];
+				
+				if(wholeWindow && (x - centerX < 0 || x + centerX >= imgWidth)) {
+					
+					if(edgeCondition == ConvolutionFilter.EDGE_ZERO_FILL) {
+						
+						for(int y = fromY; y < toY; y++) {
+							
+							targetColumn[y] &= 0xFF000000;
+						}
+					}
+					
+					continue;
+				}
+				
+				for(int y = firstRow; y < lastRow; y++) {
+					
+					reds[y] = 0.0F;
+					greens[y] = 0.0F;
+					blues[y] = 0.0F;
+				}
+				
+				for(int index = 0; index <= centerX * 2; index++) {
+					
+					float factor = horizontal[index];
+					int srcX = Utils.edge(x + index - centerX, imgWidth, edgeCondition);
+					
+					if(factor != 0.0F && srcX >= 0) {
+						
+						int[] column = source[srcX];
+						
+						for(int y = firstRow; y < lastRow; y++) {
+							
+							int pixel = column[y];
+							reds[y] += ((pixel >> 16) & 0xFF) * factor;
+							greens[y] += ((pixel >> 8) & 0xFF) * factor;
+							blues[y] += (pixel & 0xFF) * factor;
+						}
+					}
+				}
+				
+				for(int y = fromY; y < toY; y++) {
+					
+					int srcPixel = source[x][y];
+					
+					if(wholeWindow && (y - centerY < 0 || y + centerY >= imgHeight)) {
+						
+						targetColumn[y] = edgeCondition == ConvolutionFilter.EDGE_ZERO_FILL ? srcPixel & 0xFF000000 : srcPixel;
+						continue;
+					}
+					
+					float red = 0.0F;
+					float green = 0.0F;
+					float blue = 0.0F;
+					
+					for(int index = 0; index <= centerY * 2; index++) {
+						
+						int srcY = Utils.edge(y + index - centerY, imgHeight, edgeCondition);
+						
+						if(srcY >= 0) {
+							
+							float factor = vertical[index];
+							red += reds[srcY] * factor;
+							green += greens[srcY] * factor;
+							blue += blues[srcY] * factor;
+						}
+					}
+					
+					targetColumn[y] = ColorUtils.getARGB(ColorUtils.truncate((int)red), ColorUtils.truncate((int)green), ColorUtils.truncate((int)blue), ColorUtils.getAlpha(srcPixel));
+				}
+			}
+		});
+	}
+	
+	/**
+	 * @return what happens when pixels outside of the image are needed
+	 * @since 1.2.0
+	 */
+	public int getEdgeCondition() {
+		
+		return this.edgeCondition;
+	}
+	
 	private static final int[][] __getMatrix(int centerX, int centerY, int width, int height, int[][] source, int edgeCondition) {
 		
 		int imgWidth = source.length;
@@ -27,7 +27,7 @@ package de.ralleytn.simple.image;
 /**
  * Filter that blurs the image with gaussian blur.
  * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
- * @version 1.0.0
+ * @version 1.2.0
  * @since 1.0.0
  */
 public class GaussianBlurFilter extends ConvolutionFilter {
@@ -48,32 +48,36 @@ public class GaussianBlurFilter extends ConvolutionFilter {
 	 */
 	public GaussianBlurFilter(int radius, int edgeCondition) {
 		
-		super(GaussianBlurFilter.__calculateKernel(radius), edgeCondition);
+		this(GaussianBlurFilter.__calculateKernel(radius), edgeCondition);
+	}
+	
+	private GaussianBlurFilter(float[] kernel, int edgeCondition) {
+		
+		super(kernel, kernel, edgeCondition);
 	}
 
-	private static final float[][] __calculateKernel(int radius) {
+	private static final float[] __calculateKernel(int radius) {
+		
+		// The two dimensional gaussian is the product of two one dimensional ones, so the blur is done as two passes.
+		// After normalizing, the product of this kernel with itself is the same matrix that was used before.
 		
 		double sigma = 1.0D;
 		int size = radius * 2 + 1;
-		float[][] kernel = new float[size][size];
+		double[] values = new double[size];
 		double mean = size / 2.0D;
 		double sum = 0.0D;
 		
-		for(int x = 0; x < size; x++) {
+		for(int index = 0; index < size; index++) {
 			
-			for(int y = 0; y < size; y++) {
-				
-				kernel[x][y] = (float)(Math.exp(-0.5D * (Math.pow((x - mean) / sigma, 2.0D) + Math.pow((y - mean) / sigma, 2.0D))) / (2 * Math.PI * sigma * sigma));
-				sum += kernel[x][y];
-			}
+			values[index] = Math.exp(-0.5D * Math.pow((index - mean) / sigma, 2.0D));
+			sum += values[index];
 		}
 		
-		for(int x = 0; x < size; x++) {
+		float[] kernel = new float[size];
+		
+		for(int index = 0; index < size; index++) {
 			
-			for(int y = 0; y < size; y++) {
-				
-				kernel[x][y] /= sum;
-			}
+			kernel[index] = (float)(values[index] / sum);
 		}
 		
 		return kernel;
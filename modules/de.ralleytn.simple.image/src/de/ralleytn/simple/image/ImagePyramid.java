@@ -0,0 +1,279 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.Dimension;
+
+/**
+ * A chain of successively halved versions of an image, also known as mipmaps.
+ * All levels are stored in one contiguous array. Each level is stored column by column, just like the data of a {@linkplain SimpleImage}.
+ * Levels are computed with a 2x2 box filter from the level above; at odd sizes the last row or column is repeated.
+ * Like with {@link SimpleImage#SCALE_AREA_AVERAGING}, colors are weighted with their alpha, so transparent pixels do not change the color of a level.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class ImagePyramid {
+	
+	private final int[] buffer;
+	private final int[] offsets;
+	private final int[] widths;
+	private final int[] heights;
+	
+	ImagePyramid(int[][] data, int levels) {
+		
+		int width = data.length;
+		int height = data[0].length;
+		int maxLevels = 1;
+		
+		for(int levelWidth = width, levelHeight = height; levelWidth > 1 || levelHeight > 1; maxLevels++) {
+			
+			levelWidth = (levelWidth + 1) / 2;
+			levelHeight = (levelHeight + 1) / 2;
+		}
+		
+		int count = Math.min(levels, maxLevels);
+		this.offsets = new int[count];
+		this.widths = new int[count];
+		this.heights = new int[count];
+		long size = 0;
+		
+		for(int level = 0; level < count; level++) {
+			
+			this.offsets[level] = (int)size;
+			this.widths[level] = width;
+			this.heights[level] = height;
+			size += (long)width * height;
+			width = (width + 1) / 2;
+			height = (height + 1) / 2;
+		}
+		
+		if(size > Integer.MAX_VALUE) {
+			
+			throw new IllegalArgumentException("The image is too large for a pyramid!");
+		}
+		
+		this.buffer = new int[(int)size];
+		
+		for(int x = 0; x < data.length; x++) {
+			
+			System.arraycopy(data[x], 0, this.buffer, x * this.heights[0], this.heights[0]);
+		}
+		
+		for(int level = 1; level < count; level++) {
+			
+			this.downsample(level);
+		}
+	}
+	
+	private void downsample(int level) {
+		
+		int[] buffer = this.buffer;
+		int srcWidth = this.widths[level - 1];
+		int srcHeight = this.heights[level - 1];
+		int srcOffset = this.offsets[level - 1];
+		int width = this.widths[level];
+		int height = this.heights[level];
+		int offset = this.offsets[level];
+		
+		// Rows that have a partner below them; an odd last row is averaged with itself
+		int pairs = srcHeight / 2;
+		
+		for(int x = 0; x < width; x++) {
+			
+			int column1 = srcOffset + 2 * x * srcHeight;
+			int column2 = 2 * x + 1 < srcWidth ? column1 + srcHeight : column1;
+			int target = offset + x * height;
+			
+			for(int y = 0; y < pairs; y++) {
+				
+				int srcY = 2 * y;
+				buffer[target + y] = ImagePyramid.__average(buffer[column1 + srcY], buffer[column1 + srcY + 1], buffer[column2 + srcY], buffer[column2 + srcY + 1]);
+			}
+			
+			if(pairs < height) {
+				
+				int srcY = srcHeight - 1;
+				buffer[target + pairs] = ImagePyramid.__average(buffer[column1 + srcY], buffer[column1 + srcY], buffer[column2 + srcY], buffer[column2 + srcY]);
+			}
+		}
+	}
+	
+	private static final int __average(int pixelA, int pixelB, int pixelC, int pixelD) {
+		
+		if((pixelA & pixelB & pixelC & pixelD) >>> 24 != 0xFF) {
+			
+			return ImagePyramid.__averageTransparent(pixelA, pixelB, pixelC, pixelD);
+		}
+		
+		// Two channels are added up at once, each one in its own 16 bit lane; 2 is added for rounding
+		int redBlue = (pixelA & 0x00FF00FF) + (pixelB & 0x00FF00FF) + (pixelC & 0x00FF00FF) + (pixelD & 0x00FF00FF) + 0x00020002;
+		int alphaGreen = ((pixelA >>> 8) & 0x00FF00FF) + ((pixelB >>> 8) & 0x00FF00FF) + ((pixelC >>> 8) & 0x00FF00FF) + ((pixelD >>> 8) & 0x00FF00FF) + 0x00020002;
+		return ((alphaGreen << 6) & 0xFF00FF00) | ((redBlue >>> 2) & 0x00FF00FF);
+	}
+	
+	private static final int __averageTransparent(int pixelA, int pixelB, int pixelC, int pixelD) {
+		
+		// Same rounding as the area averaging, which gives the same result as the fast path above for opaque pixels
+		int alphaA = pixelA >>> 24;
+		int alphaB = pixelB >>> 24;
+		int alphaC = pixelC >>> 24;
+		int alphaD = pixelD >>> 24;
+		int alpha = alphaA + alphaB + alphaC + alphaD;
+		
+		if(alpha < 2) {
+			
+			return 0;
+		}
+		
+		int half = alpha / 2;
+		int red = (((pixelA >> 16) & 0xFF) * alphaA + ((pixelB >> 16) & 0xFF) * alphaB + ((pixelC >> 16) & 0xFF) * alphaC + ((pixelD >> 16) & 0xFF) * alphaD + half) / alpha;
+		int green = (((pixelA >> 8) & 0xFF) * alphaA + ((pixelB >> 8) & 0xFF) * alphaB + ((pixelC >> 8) & 0xFF) * alphaC + ((pixelD >> 8) & 0xFF) * alphaD + half) / alpha;
+		int blue = ((pixelA & 0xFF) * alphaA + (pixelB & 0xFF) * alphaB + (pixelC & 0xFF) * alphaC + (pixelD & 0xFF) * alphaD + half) / alpha;
+		return ((alpha + 2) >> 2) << 24 | (red << 16) | (green << 8) | blue;
+	}
+	
+	/**
+	 * Scales the image proportional to fit the given size with {@link SimpleImage#SCALE_BILINEAR_INTERPOLATION}.
+	 * The scaling starts from the smallest level that is still at least as large as the result,
+	 * so bilinear interpolation never has to skip source pixels.
+	 * @param width maximum width of the resulting image
+	 * @param height maximum height of the resulting image
+	 * @return the scaled image
+	 * @throws IllegalArgumentException If width or height is smaller than 1
+	 * @since 1.2.0
+	 */
+	public SimpleImage scaleToFit(int width, int height) throws IllegalArgumentException {
+		
+		return this.scaleToFit(width, height, SimpleImage.SCALE_BILINEAR_INTERPOLATION);
+	}
+	
+	/**
+	 * Scales the image proportional to fit the given size.
+	 * The scaling starts from the smallest level that is still at least as large as the result.
+	 * @param width maximum width of the resulting image
+	 * @param height maximum height of the resulting image
+	 * @param algorithm algorithm to scale the image with
+	 * @return the scaled image
+	 * @throws IllegalArgumentException If width or height is smaller than 1
+	 * @since 1.2.0
+	 */
+	public SimpleImage scaleToFit(int width, int height, ScaleAlgorithm algorithm) throws IllegalArgumentException {
+		
+		Dimension size = SimpleImage.fitSize(this.widths[0], this.heights[0], width, height);
+		int level = 0;
+		
+		while(level + 1 < this.offsets.length && this.widths[level + 1] >= size.width && this.heights[level + 1] >= size.height) {
+			
+			level++;
+		}
+		
+		SimpleImage image = this.getLevel(level);
+		return size.width == this.widths[level] && size.height == this.heights[level] ? image : image.scale(size.width, size.height, algorithm);
+	}
+	
+	/**
+	 * Copies a level into a new image.
+	 * @param level the level, 0 is the original image
+	 * @return the image of the level
+	 * @since 1.2.0
+	 */
+	public SimpleImage getLevel(int level) {
+		
+		int width = this.widths[level];
+		int height = this.heights[level];
+		int offset = this.offsets[level];
+		int[][] data = new int[width][height];
+		
+		for(int x = 0; x < width; x++) {
+			
+			System.arraycopy(this.buffer, offset + x * height, data[x], 0, height);
+		}
+		
+		return new SimpleImage(data);
+	}
+	
+	/**
+	 * @param level the level, 0 is the original image
+	 * @param x X position of the pixel
+	 * @param y Y position of the pixel
+	 * @return the pixel on the given level
+	 * @since 1.2.0
+	 */
+	public int getPixel(int level, int x, int y) {
+		
+		return this.buffer[this.offsets[level] + x * this.heights[level] + y];
+	}
+	
+	/**
+	 * @return the number of levels
+	 * @since 1.2.0
+	 */
+	public int getLevels() {
+		
+		return this.offsets.length;
+	}
+	
+	/**
+	 * @param level the level, 0 is the original image
+	 * @return the width of the level
+	 * @since 1.2.0
+	 */
+	public int getWidth(int level) {
+		
+		return this.widths[level];
+	}
+	
+	/**
+	 * @param level the level, 0 is the original image
+	 * @return the height of the level
+	 * @since 1.2.0
+	 */
+	public int getHeight(int level) {
+		
+		return this.heights[level];
+	}
+	
+	/**
+	 * Gives direct access to the pixels of all levels without copying them.
+	 * The pixel (x, y) of a level is located at {@code getOffset(level) + x * getHeight(level) + y}.
+	 * @return the array that contains all levels
+	 * @since 1.2.0
+	 */
+	public int[] getBuffer() {
+		
+		return this.buffer;
+	}
+	
+	/**
+	 * @param level the level, 0 is the original image
+	 * @return the index of the first pixel of the level in {@link #getBuffer()}
+	 * @since 1.2.0
+	 */
+	public int getOffset(int level) {
+		
+		return this.offsets[level];
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.Rectangle;
+
+import de.ralleytn.simple.image.internal.Parallel;
+
+/**
+ * A summed-area table of an image. Once it has been built, the sum or mean of the pixels in any rectangle is calculated with only four lookups,
+ * no matter how large the rectangle is. This pays off when many rectangles are needed, like for the brightness of regions, adaptive thresholding
+ * or box filters with many different radii.
+ * The value of a pixel is the sum of the color channels the table was built from, so a table of {@link ColorChannel#RED}, {@link ColorChannel#GREEN}
+ * and {@link ColorChannel#BLUE} measures brightness. The sums are 64 bit numbers and can not overflow.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class IntegralImage {
+	
+	private final int width;
+	private final int height;
+	private final ColorChannel[] channels;
+	
+	// Column by column with one more row and column than the image, the entry (x, y) holds the sum of all pixels above and left of the pixel (x, y)
+	private final long[] table;
+	
+	IntegralImage(int[][] data, ColorChannel[] channels, int parallelism) {
+		
+		int width = data.length;
+		int height = data[0].length;
+		int stride = height + 1;
+		
+		if((long)(width + 1) * stride > Integer.MAX_VALUE) {
+			
+			throw new IllegalArgumentException("The image is too large for an integral image!");
+		}
+		
+		this.width = width;
+		this.height = height;
+		this.channels = channels.clone();
+		this.table = new long[(width + 1) * stride];
+		
+		long[] table = this.table;
+		int[] shifts = new int[channels.length];
+		
+		for(int index = 0; index < channels.length; index++) {
+			
+			shifts[index] = channels[index].getShift();
+		}
+		
+		// First every column is summed up on its own, then the columns are added up from left to right.
+		// The first step is split into bands of columns and the second one into bands of rows, so both can run in parallel.
+		
+		Parallel.run(width, (long)width * height, parallelism, (fromX, toX) -> {
+			
+			for(int x = fromX; x < toX; x++) {
+				
+				int[] column = data[x];
+				int index = (x + 1) * stride + 1;
+				long sum = 0;
+				
+				for(int y = 0; y < height; y++) {
+					
+					int pixel = column[y];
+					
+					for(int shift : shifts) {
+						
+						sum += (pixel >>> shift) & 0xFF;
+					}
+					
+					table[index++] = sum;
+				}
+			}
+		});
+		
+		Parallel.run(height, (long)width * height, parallelism, (fromY, toY) -> {
+			
+			for(int x = 2; x <= width; x++) {
+				
+				int previous = (x - 1) * stride;
+				int current = x * stride;
+				
+				for(int y = fromY + 1; y <= toY; y++) {
+					
+					table[current + y] += table[previous + y];
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Calculates the sum of all pixels in a rectangle. Parts of the rectangle outside of the image are ignored.
+	 * @param x X position of the rectangle
+	 * @param y Y position of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @return the sum of the channels of all pixels inside of the rectangle
+	 * @since 1.2.0
+	 */
+	public long sum(int x, int y, int width, int height) {
+		
+		int fromX = Math.max(0, x);
+		int fromY = Math.max(0, y);
+		int toX = (int)Math.max(0L, Math.min(this.width, (long)x + width));
+		int toY = (int)Math.max(0L, Math.min(this.height, (long)y + height));
+		
+		return fromX < toX && fromY < toY ? this.__sum(fromX, fromY, toX, toY) : 0;
+	}
+	
+	/**
+	 * Calculates the sum of all pixels in a rectangle. Parts of the rectangle outside of the image are ignored.
+	 * @param area the rectangle
+	 * @return the sum of the channels of all pixels inside of the rectangle
+	 * @since 1.2.0
+	 */
+	public long sum(Rectangle area) {
+		
+		return this.sum(area.x, area.y, area.width, area.height);
+	}
+	
+	/**
+	 * Calculates the mean value of the channels in a rectangle. Parts of the rectangle outside of the image are ignored.
+	 * @param x X position of the rectangle
+	 * @param y Y position of the rectangle
+	 * @param width width of the rectangle
+	 * @param height height of the rectangle
+	 * @return the mean of the channels of all pixels inside of the rectangle (0.0 - 255.0), or {@link Double#NaN} if the rectangle lies completely outside of the image
+	 * @since 1.2.0
+	 */
+	public double mean(int x, int y, int width, int height) {
+		
+		int fromX = Math.max(0, x);
+		int fromY = Math.max(0, y);
+		int toX = (int)Math.max(0L, Math.min(this.width, (long)x + width));
+		int toY = (int)Math.max(0L, Math.min(this.height, (long)y + height));
+		
+		if(fromX >= toX || fromY >= toY) {
+			
+			return Double.NaN;
+		}
+		
+		return (double)this.__sum(fromX, fromY, toX, toY) / ((long)(toX - fromX) * (toY - fromY) * this.channels.length);
+	}
+	
+	/**
+	 * Calculates the mean value of the channels in a rectangle. Parts of the rectangle outside of the image are ignored.
+	 * @param area the rectangle
+	 * @return the mean of the channels of all pixels inside of the rectangle (0.0 - 255.0), or {@link Double#NaN} if the rectangle lies completely outside of the image
+	 * @since 1.2.0
+	 */
+	public double mean(Rectangle area) {
+		
+		return this.mean(area.x, area.y, area.width, area.height);
+	}
+	
+	private long __sum(int fromX, int fromY, int toX, int toY) {
+		
+		int stride = this.height + 1;
+		
+		return this.table[toX * stride + toY] - this.table[fromX * stride + toY] - this.table[toX * stride + fromY] + this.table[fromX * stride + fromY];
+	}
+	
+	/**
+	 * @return the width of the image the table was built from
+	 * @since 1.2.0
+	 */
+	public int getWidth() {
+		
+		return this.width;
+	}
+	
+	/**
+	 * @return the height of the image the table was built from
+	 * @since 1.2.0
+	 */
+	public int getHeight() {
+		
+		return this.height;
+	}
+	
+	/**
+	 * @return the color channels that are summed up
+	 * @since 1.2.0
+	 */
+	public ColorChannel[] getChannels() {
+		
+		return this.channels.clone();
+	}
+}
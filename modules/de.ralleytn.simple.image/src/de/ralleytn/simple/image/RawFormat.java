@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+/**
+ * Uncompressed image formats that are read and written by {@linkplain SimpleImage} itself instead of going through {@linkplain javax.imageio.ImageIO}.
+ * The pixel rows are moved directly between the image data and the file.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public enum RawFormat {
+	
+	/**
+	 * Binary portable pixmap ({@code P6}) with 8 bit RGB. The alpha channel is dropped when writing.
+	 * @since 1.2.0
+	 */
+	PPM,
+	
+	/**
+	 * Binary portable graymap ({@code P5}) with 8 bit luminosity. The image is converted to grayscale when writing.
+	 * @since 1.2.0
+	 */
+	PGM,
+	
+	/**
+	 * Portable arbitrary map ({@code P7}) with 8 bit RGBA.
+	 * When reading, the tuple types {@code GRAYSCALE}, {@code GRAYSCALE_ALPHA}, {@code RGB} and {@code RGB_ALPHA} are supported.
+	 * @since 1.2.0
+	 */
+	PAM,
+	
+	/**
+	 * Windows bitmap with 32 bit BGRA. When reading, uncompressed 24 and 32 bit bitmaps are supported.
+	 * @since 1.2.0
+	 */
+	BMP,
+	
+	/**
+	 * Uncompressed Truevision TGA with 32 bit BGRA. When reading, 24 and 32 bit true color and 8 bit grayscale images are supported.
+	 * @since 1.2.0
+	 */
+	TGA
+}
@@ -0,0 +1,287 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+
+import de.ralleytn.simple.image.internal.Parallel;
+import de.ralleytn.simple.image.internal.Utils;
+
+/**
+ * A geometric warp that was calculated once and can then be applied on any number of images of the same size with {@link SimpleImage#remap(RemapMap)}.
+ * For every target pixel the map stores the source pixel and the interpolation weights, so applying it needs neither trigonometry nor divisions.
+ * This makes it a good fit for lens correction or the dewarping of a fixed camera, where the same warp is applied on every frame.
+ * Maps are serializable, so expensive maps can be calculated once and loaded at startup.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class RemapMap implements Serializable {
+	
+	private static final long serialVersionUID = 8453927134210771695L;
+	
+	private final int srcWidth;
+	private final int srcHeight;
+	private final int width;
+	private final int height;
+	
+	// Column by column, like the image data. A source X position of -1 marks a target pixel that stays transparent.
+	// The weights hold the X weight in bits 0 - 7, the Y weight in bits 8 - 15 and whether the next column and row are used in bit 16 and 17.
+	private final int[] srcX;
+	private final int[] srcY;
+	private final int[] weights;
+	
+	/**
+	 * Calculates a map.
+	 * @param srcWidth width of the images the map will be applied on
+	 * @param srcHeight height of the images the map will be applied on
+	 * @param width width of the resulting images
+	 * @param height height of the resulting images
+	 * @param mapping the warp; tells for each target pixel from which source position it comes
+	 * @param interpolation how the colors between the source pixels are calculated
+	 * @throws IllegalArgumentException if one of the sizes is smaller than 1x1 or the target has more pixels than an array can hold
+	 * @since 1.2.0
+	 */
+	public RemapMap(int srcWidth, int srcHeight, int width, int height, Mapping mapping, Interpolation interpolation) throws IllegalArgumentException {
+		
+		if(srcWidth < 1 || srcHeight < 1 || width < 1 || height < 1) {
+			
+			throw new IllegalArgumentException("An image must be at least 1x1px of size!");
+		}
+		
+		if((long)width * height > Integer.MAX_VALUE) {
+			
+			throw new IllegalArgumentException("A map can not have more than " + Integer.MAX_VALUE + " target pixels!");
+		}
+		
+		this.srcWidth = srcWidth;
+		this.srcHeight = srcHeight;
+		this.width = width;
+		this.height = height;
+		this.srcX = new int[width * height];
+		this.srcY = new int[width * height];
+		this.weights = new int[width * height];
+		
+		boolean bilinear = interpolation == Interpolation.BILINEAR;
+		double[] position = new double[2];
+		int index = 0;
+		
+		for(int x = 0; x < width; x++) {
+			
+			for(int y = 0; y < height; y++) {
+				
+				mapping.map(x, y, position);
+				
+				// The position is rounded to the 1/256 pixel that the weights can express before it is split into pixel and weight.
+				// Otherwise a position a hair below a whole number would become a 255/256 blend with the pixel before it.
+				double fixedX = Math.floor(position[0] * 256.0D + 0.5D);
+				double fixedY = Math.floor(position[1] * 256.0D + 0.5D);
+				double positionX = Math.floor(fixedX / 256.0D);
+				double positionY = Math.floor(fixedY / 256.0D);
+				
+				if(positionX >= 0 && positionX < srcWidth && positionY >= 0 && positionY < srcHeight) {
+					
+					int x1 = (int)positionX;
+					int y1 = (int)positionY;
+					this.srcX[index] = x1;
+					this.srcY[index] = y1;
+					
+					// Neighbours outside of the source are replaced by the pixel on the edge, just like SimpleImage.SCALE_BILINEAR_INTERPOLATION does
+					if(bilinear) {
+						
+						int weightX = (int)(fixedX - positionX * 256.0D);
+						int weightY = (int)(fixedY - positionY * 256.0D);
+						int nextX = x1 + 1 < srcWidth ? 1 : 0;
+						int nextY = y1 + 1 < srcHeight ? 1 : 0;
+						this.weights[index] = weightX | (weightY << 8) | (nextX << 16) | (nextY << 17);
+					}
+				
+				} else {
+					
+					this.srcX[index] = -1;
+				}
+				
+				index++;
+			}
+		}
+	}
+	
+	/**
+	 * Creates a map that removes the radial distortion of a lens, like the barrel distortion of a wide angle lens.
+	 * It uses the model by Brown, where a pixel at the distance {@code r} from the center of the image was recorded at the distance
+	 * {@code r * (1 + k1 * r^2 + k2 * r^4)}. The distance is measured in half diagonals of the image, so the coefficients do not depend on the resolution.
+	 * Negative coefficients remove barrel distortion, positive ones remove pincushion distortion.
+	 * @param width width of the images
+	 * @param height height of the images
+	 * @param k1 second order coefficient
+	 * @param k2 fourth order coefficient
+	 * @return the map
+	 * @throws IllegalArgumentException if the size is smaller than 1x1
+	 * @since 1.2.0
+	 */
+	public static RemapMap lensCorrection(int width, int height, double k1, double k2) throws IllegalArgumentException {
+		
+		double centerX = (width - 1) / 2.0D;
+		double centerY = (height - 1) / 2.0D;
+		double halfDiagonal = Math.max(1.0D, Math.sqrt(centerX * centerX + centerY * centerY));
+		
+		return new RemapMap(width, height, width, height, (x, y, position) -> {
+			
+			double distanceX = (x - centerX) / halfDiagonal;
+			double distanceY = (y - centerY) / halfDiagonal;
+			double radius = distanceX * distanceX + distanceY * distanceY;
+			double factor = 1.0D + k1 * radius + k2 * radius * radius;
+			position[0] = centerX + distanceX * factor * halfDiagonal;
+			position[1] = centerY + distanceY * factor * halfDiagonal;
+		
+		}, Interpolation.BILINEAR);
+	}
+	
+	void apply(int[][] source, int[][] target) {
+		
+		int[] srcX = this.srcX;
+		int[] srcY = this.srcY;
+		int[] weights = this.weights;
+		int height = this.height;
+		
+		Parallel.run(this.width, (long)this.width * height, Parallel.DEFAULT_PARALLELISM, (fromX, toX) -> {
+			
+			for(int x = fromX; x < toX; x++) {
+				
+				int[] targetColumn = target[x];
+				int index = x * height;
+				
+				for(int y = 0; y < height; y++, index++) {
+					
+					int x1 = srcX[index];
+					
+					if(x1 >= 0) {
+						
+						int y1 = srcY[index];
+						int weight = weights[index];
+						int y2 = y1 + ((weight >>> 17) & 1);
+						int[] column1 = source[x1];
+						int[] column2 = source[x1 + ((weight >>> 16) & 1)];
+						
+						targetColumn[y] = Utils.interpolateBilinear(column1[y1], column2[y1], column1[y2], column2[y2], weight & 0xFF, (weight >>> 8) & 0xFF);
+					}
+				}
+			}
+		});
+	}
+	
+	private void readObject(ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
+		
+		inputStream.defaultReadObject();
+		
+		// apply() indexes the source with these values without any checks, so a stale or corrupt map has to be rejected here
+		if(this.srcWidth < 1 || this.srcHeight < 1 || this.width < 1 || this.height < 1 || (long)this.width * this.height > Integer.MAX_VALUE) {
+			
+			throw new InvalidObjectException("Invalid map size!");
+		}
+		
+		int size = this.width * this.height;
+		
+		if(this.srcX == null || this.srcY == null || this.weights == null || this.srcX.length != size || this.srcY.length != size || this.weights.length != size) {
+			
+			throw new InvalidObjectException("The size of the map does not match its data!");
+		}
+		
+		for(int index = 0; index < size; index++) {
+			
+			int x1 = this.srcX[index];
+			
+			if(x1 != -1) {
+				
+				int x2 = x1 + ((this.weights[index] >>> 16) & 1);
+				int y1 = this.srcY[index];
+				int y2 = y1 + ((this.weights[index] >>> 17) & 1);
+				
+				if(x1 < 0 || x2 >= this.srcWidth || y1 < 0 || y2 >= this.srcHeight) {
+					
+					throw new InvalidObjectException("The map contains a position outside of the source!");
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return width of the images the map can be applied on
+	 * @since 1.2.0
+	 */
+	public int getSourceWidth() {
+		
+		return this.srcWidth;
+	}
+	
+	/**
+	 * @return height of the images the map can be applied on
+	 * @since 1.2.0
+	 */
+	public int getSourceHeight() {
+		
+		return this.srcHeight;
+	}
+	
+	/**
+	 * @return width of the resulting images
+	 * @since 1.2.0
+	 */
+	public int getWidth() {
+		
+		return this.width;
+	}
+	
+	/**
+	 * @return height of the resulting images
+	 * @since 1.2.0
+	 */
+	public int getHeight() {
+		
+		return this.height;
+	}
+	
+	/**
+	 * Describes a warp for {@linkplain RemapMap}.
+	 * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+	 * @version 1.2.0
+	 * @since 1.2.0
+	 */
+	@FunctionalInterface
+	public static interface Mapping {
+		
+		/**
+		 * Calculates from which position of the source a target pixel comes. Like everywhere else, the pixel {@code (x, y)} lies at the position {@code (x, y)}.
+		 * @param targetX X position of the target pixel
+		 * @param targetY Y position of the target pixel
+		 * @param position array of length 2 that receives the X and Y position in the source
+		 * @since 1.2.0
+		 */
+		public void map(int targetX, int targetY, double[] position);
+	}
+}
@@ -24,10 +24,12 @@
 
 package de.ralleytn.simple.image;
 
+import de.ralleytn.simple.image.internal.Parallel;
+
 /**
  * Must be implemented by all rotation algorithms.
  * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
- * @version 1.1.0
+ * @version 1.2.0
  * @since 1.1.0
  */
 @FunctionalInterface
@@ -43,4 +45,83 @@ public interface RotationAlgorithm {
 	 * @since 1.1.0
 	 */
 	public void calc(int[][] source, int[][] target, double degrees, int rotationCenterX, int rotationCenterY);
+	
+	/**
+	 * Returns a variant of this algorithm that uses at most the given number of threads.
+	 * More threads than available processors are never used. Algorithms that cannot run in parallel return themselves.
+	 * @param parallelism maximum number of threads, 1 to stay single threaded
+	 * @return the algorithm with the given parallelism
+	 * @throws IllegalArgumentException if the parallelism is smaller than 1
+	 * @since 1.2.0
+	 */
+	public default RotationAlgorithm withParallelism(int parallelism) throws IllegalArgumentException {
+		
+		Parallel.checkParallelism(parallelism);
+		return this;
+	}
+	
+	/**
+	 * Turns an algorithm that can calculate any range of target columns into one that splits the target into bands
+	 * and calculates them on all available cores. Small images are calculated on the calling thread.
+	 * @param band the algorithm
+	 * @return the parallel algorithm
+	 * @since 1.2.0
+	 */
+	public static RotationAlgorithm parallel(Band band) {
+		
+		return RotationAlgorithm.parallel(band, Parallel.DEFAULT_PARALLELISM);
+	}
+	
+	/**
+	 * Turns an algorithm that can calculate any range of target columns into one that splits the target into bands
+	 * and calculates them with at most the given number of threads. Small images are calculated on the calling thread.
+	 * @param band the algorithm
+	 * @param parallelism maximum number of threads
+	 * @return the parallel algorithm
+	 * @throws IllegalArgumentException if the parallelism is smaller than 1
+	 * @since 1.2.0
+	 */
+	public static RotationAlgorithm parallel(Band band, int parallelism) throws IllegalArgumentException {
+		
+		Parallel.checkParallelism(parallelism);
+		
+		return new RotationAlgorithm() {
+			
+			@Override
+			public void calc(int[][] source, int[][] target, double degrees, int rotationCenterX, int rotationCenterY) {
+				
+				Parallel.run(target.length, (long)target.length * target[0].length, parallelism, (fromX, toX) -> band.calc(source, target, degrees, rotationCenterX, rotationCenterY, fromX, toX));
+			}
+			
+			@Override
+			public RotationAlgorithm withParallelism(int newParallelism) {
+				
+				return RotationAlgorithm.parallel(band, newParallelism);
+			}
+		};
+	}
+	
+	/**
+	 * A rotation algorithm that calculates a range of columns of the target image.
+	 * Every call must only write into its own columns, so that multiple ranges can be calculated at the same time.
+	 * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+	 * @version 1.2.0
+	 * @since 1.2.0
+	 */
+	@FunctionalInterface
+	public static interface Band {
+		
+		/**
+		 * Calculates the columns {@code fromX} (inclusive) to {@code toX} (exclusive) of the target image.
+		 * @param source image to rotate
+		 * @param target the rotated image
+		 * @param degrees degrees by which the image should rotate
+		 * @param rotationCenterX X position of the rotation center
+		 * @param rotationCenterY Y position of the rotation center
+		 * @param fromX first column to calculate
+		 * @param toX column after the last one to calculate
+		 * @since 1.2.0
+		 */
+		public void calc(int[][] source, int[][] target, double degrees, int rotationCenterX, int rotationCenterY, int fromX, int toX);
+	}
 }
@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of an image one after the other from top to bottom, for example to pass them on to a streaming encoder.
+ * Used by {@linkplain StreamingScaler} to scale images that do not fit into the memory.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+@FunctionalInterface
+public interface RowSink {
+	
+	/**
+	 * Called once before the first row is written. Does nothing by default.
+	 * @param width the width of the image
+	 * @param height the height of the image
+	 * @throws IOException if an error occurs during writing
+	 * @since 1.2.0
+	 */
+	public default void start(int width, int height) throws IOException {}
+	
+	/**
+	 * Writes the next row of the image. Each pixel is an ARGB integer.
+	 * The array is reused for the following rows, so its content has to be copied if it is needed later.
+	 * @param row the pixels of the row
+	 * @throws IOException if an error occurs during writing
+	 * @since 1.2.0
+	 */
+	public void write(int[] row) throws IOException;
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.io.IOException;
+
+/**
+ * Provides the rows of an image one after the other from top to bottom, for example from a streaming decoder or a memory mapped file.
+ * Used by {@linkplain StreamingScaler} to scale images that do not fit into the memory.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public interface RowSource {
+	
+	/**
+	 * @return the width of the image
+	 * @since 1.2.0
+	 */
+	public int getWidth();
+	
+	/**
+	 * @return the height of the image
+	 * @since 1.2.0
+	 */
+	public int getHeight();
+	
+	/**
+	 * Reads the next row of the image. Each pixel is an ARGB integer.
+	 * @param row array with the length of the image width that the pixels are written into
+	 * @throws IOException if an error occurs during reading
+	 * @since 1.2.0
+	 */
+	public void read(int[] row) throws IOException;
+	
+	/**
+	 * Wraps an image that is already in the memory.
+	 * @param image the image
+	 * @return a row source that reads the rows of the image
+	 * @since 1.2.0
+	 */
+	public static RowSource of(SimpleImage image) {
+		
+		int[][] data = image.getData();
+		
+		return new RowSource() {
+			
+			private int y;
+			
+			@Override
+			public int getWidth() {
+				
+				return data.length;
+			}
+			
+			@Override
+			public int getHeight() {
+				
+				return data[0].length;
+			}
+			
+			@Override
+			public void read(int[] row) {
+				
+				for(int x = 0; x < data.length; x++) {
+					
+					row[x] = data[x][this.y];
+				}
+				
+				this.y++;
+			}
+		};
+	}
+}
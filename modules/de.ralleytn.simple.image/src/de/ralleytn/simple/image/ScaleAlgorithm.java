@@ -24,10 +24,12 @@
 
 package de.ralleytn.simple.image;
 
+import de.ralleytn.simple.image.internal.Parallel;
+
 /**
  * Must be implemented by all scale algorithms.
  * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
- * @version 1.1.0
+ * @version 1.2.0
  * @since 1.1.0
  */
 @FunctionalInterface
@@ -40,4 +42,80 @@ public interface ScaleAlgorithm {
 	 * @since 1.1.0
 	 */
 	public void calc(int[][] source, int[][] target);
+	
+	/**
+	 * Returns a variant of this algorithm that uses at most the given number of threads.
+	 * More threads than available processors are never used. Algorithms that cannot run in parallel return themselves.
+	 * @param parallelism maximum number of threads, 1 to stay single threaded
+	 * @return the algorithm with the given parallelism
+	 * @throws IllegalArgumentException if the parallelism is smaller than 1
+	 * @since 1.2.0
+	 */
+	public default ScaleAlgorithm withParallelism(int parallelism) throws IllegalArgumentException {
+		
+		Parallel.checkParallelism(parallelism);
+		return this;
+	}
+	
+	/**
+	 * Turns an algorithm that can calculate any range of target columns into one that splits the target into bands
+	 * and calculates them on all available cores. Small images are calculated on the calling thread.
+	 * @param band the algorithm
+	 * @return the parallel algorithm
+	 * @since 1.2.0
+	 */
+	public static ScaleAlgorithm parallel(Band band) {
+		
+		return ScaleAlgorithm.parallel(band, Parallel.DEFAULT_PARALLELISM);
+	}
+	
+	/**
+	 * Turns an algorithm that can calculate any range of target columns into one that splits the target into bands
+	 * and calculates them with at most the given number of threads. Small images are calculated on the calling thread.
+	 * @param band the algorithm
+	 * @param parallelism maximum number of threads
+	 * @return the parallel algorithm
+	 * @throws IllegalArgumentException if the parallelism is smaller than 1
+	 * @since 1.2.0
+	 */
+	public static ScaleAlgorithm parallel(Band band, int parallelism) throws IllegalArgumentException {
+		
+		Parallel.checkParallelism(parallelism);
+		
+		return new ScaleAlgorithm() {
+			
+			@Override
+			public void calc(int[][] source, int[][] target) {
+				
+				Parallel.run(target.length, (long)target.length * target[0].length, parallelism, (fromX, toX) -> band.calc(source, target, fromX, toX));
+			}
+			
+			@Override
+			public ScaleAlgorithm withParallelism(int newParallelism) {
+				
+				return ScaleAlgorithm.parallel(band, newParallelism);
+			}
+		};
+	}
+	
+	/**
+	 * A scale algorithm that calculates a range of columns of the target image.
+	 * Every call must only write into its own columns, so that multiple ranges can be calculated at the same time.
+	 * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+	 * @version 1.2.0
+	 * @since 1.2.0
+	 */
+	@FunctionalInterface
+	public static interface Band {
+		
+		/**
+		 * Calculates the columns {@code fromX} (inclusive) to {@code toX} (exclusive) of the target image.
+		 * @param source image to scale
+		 * @param target the scaled image
+		 * @param fromX first column to calculate
+		 * @param toX column after the last one to calculate
+		 * @since 1.2.0
+		 */
+		public void calc(int[][] source, int[][] target, int fromX, int toX);
+	}
 }
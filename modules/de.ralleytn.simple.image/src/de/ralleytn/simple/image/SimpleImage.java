@@ -32,12 +32,17 @@ import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Robot;
 import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
@@ -49,23 +54,35 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.zip.ZipFile;
 
-import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
-import javax.imageio.ImageWriteParam;
-import javax.imageio.ImageWriter;
-import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 
+import de.ralleytn.simple.image.internal.Affine;
+import de.ralleytn.simple.image.internal.Encoders;
+import de.ralleytn.simple.image.internal.Parallel;
+import de.ralleytn.simple.image.internal.RawCodec;
+import de.ralleytn.simple.image.internal.Resampler;
+import de.ralleytn.simple.image.internal.Rotations;
+import de.ralleytn.simple.image.internal.Streaming;
 import de.ralleytn.simple.image.internal.Utils;
+import de.ralleytn.simple.image.internal.Workers;
 
 /**
  * Represents an image. The image data is saved in a two dimensional integer array.
@@ -96,142 +113,267 @@ public class SimpleImage {
 	 * A simple and really fast scaling algorithm that produces images with low quality. Recommended for pixel arts or thumbnails.
 	 * @since 1.0.0
 	 */
-	public static final ScaleAlgorithm SCALE_NEAREST_NEIGHBOUR = (source, target) -> {
+	public static final ScaleAlgorithm SCALE_NEAREST_NEIGHBOUR = Streaming.streamable(ScaleAlgorithm.parallel((source, target, fromX, toX) -> {
 		
 		int srcWidth = source.length;
 		int srcHeight = source[0].length;
 		int targetWidth = target.length;
 		int targetHeight = target[0].length;
 		
-		for(int targetX = 0; targetX < targetWidth; targetX++) {
+		// Columns are either copied, stretched with Arrays.fill if the height is a multiple of the source height,
+		// or gathered with a table of source rows that is computed once instead of dividing for every pixel.
+		// Neighbouring target columns that come from the same source column are simply copied.
+		
+		int upscale = targetHeight % srcHeight == 0 ? targetHeight / srcHeight : 0;
+		int downscale = srcHeight % targetHeight == 0 ? srcHeight / targetHeight : 0;
+		int[] srcRows = upscale == 0 && downscale == 0 ? SimpleImage.__nearestIndices(srcHeight, targetHeight) : null;
+		int previousX = -1;
+		
+		for(int targetX = fromX; targetX < toX; targetX++) {
 			
-			for(int targetY = 0; targetY < targetHeight; targetY++) {
+			int srcX = (int)((long)targetX * srcWidth / targetWidth);
+			int[] targetColumn = target[targetX];
+			
+			if(srcX == previousX) {
+				
+				System.arraycopy(target[targetX - 1], 0, targetColumn, 0, targetHeight);
+				continue;
+			}
+			
+			int[] column = source[srcX];
+			previousX = srcX;
+			
+			if(upscale == 1) {
+				
+				System.arraycopy(column, 0, targetColumn, 0, targetHeight);
+			
+			} else if(upscale > 1) {
+				
+				for(int srcY = 0, targetY = 0; srcY < srcHeight; srcY++, targetY += upscale) {
+					
+					Arrays.fill(targetColumn, targetY, targetY + upscale, column[srcY]);
+				}
+				
+			} else if(downscale > 1) {
 				
-				int srcX = targetX * srcWidth / targetWidth;
-				int srcY = targetY * srcHeight / targetHeight;
+				for(int targetY = 0, srcY = 0; targetY < targetHeight; targetY++, srcY += downscale) {
+					
+					targetColumn[targetY] = column[srcY];
+				}
+			
+			} else {
 				
-				target[targetX][targetY] = source[srcX][srcY];
+				for(int targetY = 0; targetY < targetHeight; targetY++) {
+					
+					targetColumn[targetY] = column[srcRows[targetY]];
+				}
 			}
 		}
-	};
+	}), Streaming.Nearest::new);
 	
 	/**
 	 * Used for {@link #scale(int, int, ScaleAlgorithm)}, {@link #scaleByFactor(float, ScaleAlgorithm)} and {@link #scaleToFit(int, int, ScaleAlgorithm)}.
 	 * A bit more complex than {@link #SCALE_NEAREST_NEIGHBOUR} causing it to be slower, but the quality of resulting images is better.
 	 * @since 1.0.0
 	 */
-	public static final ScaleAlgorithm SCALE_BILINEAR_INTERPOLATION = (source, target) -> {
+	public static final ScaleAlgorithm SCALE_BILINEAR_INTERPOLATION = Streaming.streamable(ScaleAlgorithm.parallel((source, target, fromX, toX) -> {
 		
 		int srcWidth = source.length;
 		int srcHeight = source[0].length;
 		int targetWidth = target.length;
 		int targetHeight = target[0].length;
 		
-		float ratioX = (float)srcWidth / (float)targetWidth;
-		float ratioY = (float)srcHeight / (float)targetHeight;
+		// The source rows and the weights only depend on the target row, so they are calculated once instead of for every column.
+		// Positions are 8 bit fixed point numbers, the upper bits are the pixel and the lower 8 bits are the weight.
+		
+		int[] srcY1 = new int[targetHeight];
+		int[] srcY2 = new int[targetHeight];
+		int[] weightY = new int[targetHeight];
+		
+		for(int targetY = 0; targetY < targetHeight; targetY++) {
+			
+			long position = (long)targetY * srcHeight * 256 / targetHeight;
+			srcY1[targetY] = (int)(position >> 8);
+			srcY2[targetY] = Math.min(srcY1[targetY] + 1, srcHeight - 1);
+			weightY[targetY] = (int)(position & 0xFF);
+		}
 		
-		for(int targetX = 0; targetX < targetWidth; targetX++) {
+		for(int targetX = fromX; targetX < toX; targetX++) {
+			
+			long position = (long)targetX * srcWidth * 256 / targetWidth;
+			int srcX1 = (int)(position >> 8);
+			int weightX = (int)(position & 0xFF);
+			int[] column1 = source[srcX1];
+			int[] column2 = source[Math.min(srcX1 + 1, srcWidth - 1)];
+			int[] targetColumn = target[targetX];
 			
 			for(int targetY = 0; targetY < targetHeight; targetY++) {
 				
-				int srcX1 = (int)(ratioX * targetX);
-				int srcX2 = srcX1 + 1;
-				int srcY1 = (int)(ratioY * targetY);
-				int srcY2 = srcY1 + 1;
+				int y1 = srcY1[targetY];
+				int y2 = srcY2[targetY];
 				
-				float diffX = (ratioX * targetX) - srcX1;
-	            float diffY = (ratioY * targetY) - srcY1;
-
-				int pixelA = source[srcX1][srcY1];
-				int pixelB = Utils.inBounds(srcX2, srcY1, 0, 0, srcWidth, srcHeight) ? source[srcX2][srcY1] : pixelA;
-				int pixelC = Utils.inBounds(srcX1, srcY2, 0, 0, srcWidth, srcHeight) ? source[srcX1][srcY2] : pixelA;
-				int pixelD = Utils.inBounds(srcX2, srcY2, 0, 0, srcWidth, srcHeight) ? source[srcX2][srcY2] : pixelA;
-
-				int alpha = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 24);
-				int red = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 16);
-				int green = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 8);
-				int blue = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 0);
-				
-				target[targetX][targetY] = ColorUtils.getARGB(red, green, blue, alpha);
+				targetColumn[targetY] = Utils.interpolateBilinear(column1[y1], column2[y1], column1[y2], column2[y2], weightX, weightY[targetY]);
 			}
 		}
-	};
+	}), Streaming.Bilinear::new);
+	
+	/**
+	 * Used for {@link #scale(int, int, ScaleAlgorithm)}, {@link #scaleByFactor(float, ScaleAlgorithm)} and {@link #scaleToFit(int, int, ScaleAlgorithm)}.
+	 * Bicubic interpolation with the Catmull-Rom spline. Sharper than {@link #SCALE_BILINEAR_INTERPOLATION} and, as the kernel widens when
+	 * downscaling, it takes every source pixel into account instead of aliasing.
+	 * @since 1.2.0
+	 */
+	public static final ScaleAlgorithm SCALE_BICUBIC = Streaming.streamable(Resampler.algorithm(Resampler.Kernel.CATMULL_ROM, Parallel.DEFAULT_PARALLELISM), Resampler.rows(Resampler.Kernel.CATMULL_ROM));
+	
+	/**
+	 * Used for {@link #scale(int, int, ScaleAlgorithm)}, {@link #scaleByFactor(float, ScaleAlgorithm)} and {@link #scaleToFit(int, int, ScaleAlgorithm)}.
+	 * Cubic filter by Mitchell and Netravali. A bit softer than {@link #SCALE_BICUBIC} but with less ringing, which makes it a good default for photos.
+	 * @since 1.2.0
+	 */
+	public static final ScaleAlgorithm SCALE_MITCHELL = Streaming.streamable(Resampler.algorithm(Resampler.Kernel.MITCHELL, Parallel.DEFAULT_PARALLELISM), Resampler.rows(Resampler.Kernel.MITCHELL));
+	
+	/**
+	 * Used for {@link #scale(int, int, ScaleAlgorithm)}, {@link #scaleByFactor(float, ScaleAlgorithm)} and {@link #scaleToFit(int, int, ScaleAlgorithm)}.
+	 * Windowed sinc filter with three lobes. Produces the sharpest results of all scale algorithms but is also the slowest one.
+	 * @since 1.2.0
+	 */
+	public static final ScaleAlgorithm SCALE_LANCZOS = Streaming.streamable(Resampler.algorithm(Resampler.Kernel.LANCZOS3, Parallel.DEFAULT_PARALLELISM), Resampler.rows(Resampler.Kernel.LANCZOS3));
+	
+	/**
+	 * Used for {@link #scale(int, int, ScaleAlgorithm)}, {@link #scaleByFactor(float, ScaleAlgorithm)} and {@link #scaleToFit(int, int, ScaleAlgorithm)}.
+	 * Every target pixel becomes the exact average of the source area it covers, including the partially covered pixels at its border.
+	 * Colors are weighted with their alpha, so fully transparent pixels do not change the color of the result.
+	 * Meant for large reduction ratios, where it is both faster and far better looking than the other algorithms, as it reads every source pixel exactly once.
+	 * @since 1.2.0
+	 */
+	public static final ScaleAlgorithm SCALE_AREA_AVERAGING = Streaming.streamable(Resampler.areaAveraging(Parallel.DEFAULT_PARALLELISM), Resampler.RowAverager::new);
 	
 	/**
 	 * Used for {@link #rotate(double, RotationAlgorithm)}, {@link #rotate(double, Dimension, RotationAlgorithm)}, {@link #rotate(double, int, int, int, int, RotationAlgorithm)} and {@link #rotate(double, Dimension, Point, RotationAlgorithm)}.
 	 * Not as fast as {@link #ROTATE_NEAREST_NEIGHBOUR} but it produces better results.
 	 * @since 1.1.0
 	 */
-	public static final RotationAlgorithm ROTATE_BILINEAR_INTERPOLATION = (source, target, degrees, rotationCenterX, rotationCenterY) -> {
+	public static final RotationAlgorithm ROTATE_BILINEAR_INTERPOLATION = RotationAlgorithm.parallel((source, target, degrees, rotationCenterX, rotationCenterY, fromX, toX) -> {
+		
+		int quarterTurns = Rotations.quarterTurns(degrees);
+		
+		// At right angles every target pixel lies exactly on a source pixel, so there is nothing to interpolate
+		if(quarterTurns >= 0) {
+			
+			Rotations.rotateQuarterTurns(source, target, quarterTurns, rotationCenterX, rotationCenterY, fromX, toX);
+			return;
+		}
 		
 		int srcWidth = source.length;
 		int srcHeight = source[0].length;
 		double radians = Math.toRadians(degrees);
-		int targetWidth = target.length;
+		double sin = Math.sin(radians);
+		double cos = Math.cos(radians);
 		int targetHeight = target[0].length;
 		
-		for(int targetX = 0; targetX < targetWidth; targetX++) {
+		// The source position moves by a constant step from one target pixel to the next, so it is tracked as a 32.32 fixed point number.
+		// The upper 8 bits of the fraction are used as the weight.
+		
+		long stepX = Math.round(sin * Rotations.FIXED_ONE);
+		long stepY = Math.round(cos * Rotations.FIXED_ONE);
+		
+		for(int targetX = fromX; targetX < toX; targetX++) {
 			
-			for(int targetY = 0; targetY < targetHeight; targetY++) {
+			long startX = Math.round((rotationCenterY - (rotationCenterY * sin) - ((rotationCenterX - targetX) * cos)) * Rotations.FIXED_ONE);
+			long startY = Math.round((rotationCenterX - (rotationCenterY * cos) + ((rotationCenterY - targetX) * sin)) * Rotations.FIXED_ONE);
+			int[] targetColumn = target[targetX];
+			
+			// Only pixels whose four neighbours are all inside of the source take the fast path without any bounds checks
+			int[] interior = Rotations.interiorSpan(startX, stepX, srcWidth - 1, startY, stepY, srcHeight - 1, targetHeight);
+			
+			for(int targetY = 0; targetY < interior[0]; targetY++) {
 				
-				double srcY = rotationCenterX - ((rotationCenterY - targetY) * Math.cos(radians)) + ((rotationCenterY - targetX) * Math.sin(radians));
-				double srcX = rotationCenterY - ((rotationCenterY - targetY) * Math.sin(radians)) - ((rotationCenterX - targetX) * Math.cos(radians));
-
-				int x1 = (int)srcX;
-				int y1 = (int)srcY;
+				SimpleImage.__interpolateAtEdge(source, targetColumn, targetY, startX + targetY * stepX, startY + targetY * stepY);
+			}
+			
+			long srcX = startX + interior[0] * stepX;
+			long srcY = startY + interior[0] * stepY;
+			
+			for(int targetY = interior[0]; targetY < interior[1]; targetY++) {
 				
-				if(Utils.inBounds(x1, y1, 0, 0, srcWidth, srcHeight)) {
-					
-					int x2 = (int)srcX + 1;
-					int y2 = (int)srcY + 1;
-					
-					float diffX = (float)(srcX - (int)srcX);
-					float diffY = (float)(srcY - (int)srcY);
-					
-					int pixelA = source[x1][y1];
-					int pixelB = Utils.inBounds(x2, y1, 0, 0, srcWidth, srcHeight) ? source[x2][y1] : pixelA;
-					int pixelC = Utils.inBounds(x1, y2, 0, 0, srcWidth, srcHeight) ? source[x1][y2] : pixelA;
-					int pixelD = Utils.inBounds(x2, y2, 0, 0, srcWidth, srcHeight) ? source[x2][y2] : pixelA;
-					
-					int alpha = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 24);
-					int red = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 16);
-					int green = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 8);
-					int blue = Utils.interpolateColorChannelBilinear(pixelA, pixelB, pixelC, pixelD, diffX, diffY, 0);
-					
-					target[targetX][targetY] = ColorUtils.getARGB(red, green, blue, alpha);
-				}
+				int x1 = (int)(srcX >> 32);
+				int y1 = (int)(srcY >> 32);
+				int[] column1 = source[x1];
+				int[] column2 = source[x1 + 1];
+				
+				targetColumn[targetY] = Utils.interpolateBilinear(column1[y1], column2[y1], column1[y1 + 1], column2[y1 + 1], (int)(srcX >>> 24) & 0xFF, (int)(srcY >>> 24) & 0xFF);
+				srcX += stepX;
+				srcY += stepY;
+			}
+			
+			for(int targetY = interior[1]; targetY < targetHeight; targetY++) {
+				
+				SimpleImage.__interpolateAtEdge(source, targetColumn, targetY, startX + targetY * stepX, startY + targetY * stepY);
 			}
 		}
-	};
+	});
 	
 	/**
 	 * Used for {@link #rotate(double, RotationAlgorithm)}, {@link #rotate(double, Dimension, RotationAlgorithm)}, {@link #rotate(double, int, int, int, int, RotationAlgorithm)} and {@link #rotate(double, Dimension, Point, RotationAlgorithm)}.
 	 * Fast rotation algorithm.
 	 * @since 1.1.0
 	 */
-	public static final RotationAlgorithm ROTATE_NEAREST_NEIGHBOUR = (source, target, degrees, rotationCenterX, rotationCenterY) -> {
+	public static final RotationAlgorithm ROTATE_NEAREST_NEIGHBOUR = RotationAlgorithm.parallel((source, target, degrees, rotationCenterX, rotationCenterY, fromX, toX) -> {
+		
+		int quarterTurns = Rotations.quarterTurns(degrees);
+		
+		if(quarterTurns >= 0) {
+			
+			Rotations.rotateQuarterTurns(source, target, quarterTurns, rotationCenterX, rotationCenterY, fromX, toX);
+			return;
+		}
 		
 		int srcWidth = source.length;
 		int srcHeight = source[0].length;
 		double radians = Math.toRadians(degrees);
-		int targetWidth = target.length;
+		double sin = Math.sin(radians);
+		double cos = Math.cos(radians);
 		int targetHeight = target[0].length;
 		
-		for(int targetX = 0; targetX < targetWidth; targetX++) {
+		// The source position moves by a constant step from one target pixel to the next, so it is tracked as a 32.32 fixed point number.
+		// Only the span of each column that lands inside of the source is visited, the pixels around it stay transparent.
+		
+		long stepX = Math.round(sin * Rotations.FIXED_ONE);
+		long stepY = Math.round(cos * Rotations.FIXED_ONE);
+		
+		for(int targetX = fromX; targetX < toX; targetX++) {
 			
-			for(int targetY = 0; targetY < targetHeight; targetY++) {
+			long startX = Math.round((rotationCenterY - (rotationCenterY * sin) - ((rotationCenterX - targetX) * cos)) * Rotations.FIXED_ONE);
+			long startY = Math.round((rotationCenterX - (rotationCenterY * cos) + ((rotationCenterY - targetX) * sin)) * Rotations.FIXED_ONE);
+			int[] targetColumn = target[targetX];
+			int[] span = Rotations.interiorSpan(startX, stepX, srcWidth, startY, stepY, srcHeight, targetHeight);
+			long srcX = startX + span[0] * stepX;
+			long srcY = startY + span[0] * stepY;
+			
+			for(int targetY = span[0]; targetY < span[1]; targetY++) {
 				
-				int srcY = (int)(rotationCenterX - ((rotationCenterY - targetY) * Math.cos(radians)) + ((rotationCenterY - targetX) * Math.sin(radians)));
-				int srcX = (int)(rotationCenterY - ((rotationCenterY - targetY) * Math.sin(radians)) - ((rotationCenterX - targetX) * Math.cos(radians)));
-
-				if(Utils.inBounds(srcX, srcY, 0, 0, srcWidth, srcHeight)) {
-
-					target[targetX][targetY] = source[srcX][srcY];
-				}
+				targetColumn[targetY] = source[(int)(srcX >> 32)][(int)(srcY >> 32)];
+				srcX += stepX;
+				srcY += stepY;
 			}
 		}
-	};
-
+	});
+	
+	/**
+	 * Used for {@link #rotate(double, RotationAlgorithm)}, {@link #rotate(double, Dimension, RotationAlgorithm)}, {@link #rotate(double, int, int, int, int, RotationAlgorithm)} and {@link #rotate(double, Dimension, Point, RotationAlgorithm)}.
+	 * Splits the rotation into three shears, each of which only moves whole columns or whole rows by a fraction of a pixel.
+	 * Every pass reads and writes memory in order and interpolates from two neighbours instead of four.
+	 * The quality is about the same as with {@link #ROTATE_BILINEAR_INTERPOLATION}.
+	 * @since 1.2.0
+	 */
+	public static final RotationAlgorithm ROTATE_THREE_SHEAR = Rotations.threeShear(Parallel.DEFAULT_PARALLELISM);
+	
+	// Number of pixels of the downsampled copy used to predict the JPEG quality in writeJpegWithinBytes
+	private static final double JPEG_TRIAL_PIXELS = 256 * 256;
+	
+	// Number of real encodes in the search of writeJpegWithinBytes, one more may follow with the lowest quality
+	private static final int JPEG_MAX_ATTEMPTS = 8;
+	
 	private int[][] data;
 	final Map<String, Atlas> atlases = new HashMap<>();
 	
@@ -421,6 +563,19 @@ public class SimpleImage {
 		this.data = Utils.read(ImageIO.read(inputStream));
 	}
 	
+	/**
+	 * Loads an image from an uncompressed file without going through {@linkplain ImageIO}.
+	 * The rows are read in large chunks and copied straight into the image data.
+	 * @param file the file to read
+	 * @param format the format of the file
+	 * @throws IOException if an error occurs during reading or if the file is not a supported variant of the given format.
+	 * @since 1.2.0
+	 */
+	public SimpleImage(Path file, RawFormat format) throws IOException {
+		
+		this.data = RawCodec.read(file, format);
+	}
+	
 	/**
 	 * Allows you to use the {@linkplain Graphics2D} class to paint directly to the image.
 	 * It is slower than editing the data array though.
@@ -444,7 +599,7 @@ public class SimpleImage {
 	 */
 	public void write(OutputStream outputStream) throws IOException {
 		
-		ImageIO.write(this.toBufferedImage(), "PNG", outputStream);
+		Encoders.write(this.toBufferedImage(), "PNG", outputStream);
 	}
 
 	/**
@@ -456,7 +611,7 @@ public class SimpleImage {
 	 */
 	public void write(OutputStream outputStream, String format) throws IOException {
 		
-		ImageIO.write(this.toBufferedImage(), format, outputStream);
+		Encoders.write(this.toBufferedImage(), format, outputStream);
 	}
 	
 	/**
@@ -468,7 +623,7 @@ public class SimpleImage {
 	 */
 	public void write(OutputStream outputStream, int type) throws IOException {
 		
-		ImageIO.write(this.toBufferedImage(type), "PNG", outputStream);
+		Encoders.write(this.toBufferedImage(type), "PNG", outputStream);
 	}
 
 	/**
@@ -481,14 +636,14 @@ public class SimpleImage {
 	 */
 	public void write(OutputStream outputStream, String format, int type) throws IOException {
 		
-		ImageIO.write(this.toBufferedImage(type), format, outputStream);
+		Encoders.write(this.toBufferedImage(type), format, outputStream);
 	}
 	
 	/**
-	 * 
-	 * @param outputStream
-	 * @param compressionQuality
-	 * @throws IOException
+	 * Writes the binary data of the image as JPEG on an output stream.
+	 * @param outputStream output stream to write the data on
+	 * @param compressionQuality 0.0F = small file, 1.0F = high quality
+	 * @throws IOException if an error occurs during writing.
 	 * @since 1.2.0
 	 */
 	public void write(OutputStream outputStream, float compressionQuality) throws IOException {
@@ -497,21 +652,413 @@ public class SimpleImage {
 	}
 	
 	/**
-	 * 
-	 * @param outputStream
-	 * @param type
-	 * @param compressionQuality
-	 * @throws IOException
+	 * Writes the binary data of the image as JPEG on an output stream.
+	 * @param outputStream output stream to write the data on
+	 * @param type the color model
+	 * @param compressionQuality 0.0F = small file, 1.0F = high quality
+	 * @throws IOException if an error occurs during writing or if JPEG does not support the color model.
 	 * @since 1.2.0
 	 */
 	public void write(OutputStream outputStream, int type, float compressionQuality) throws IOException {
 		
-		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
-		JPEGImageWriteParam param = new JPEGImageWriteParam(null);
-		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-		param.setCompressionQuality(compressionQuality);
-		writer.setOutput(outputStream);
-		writer.write(null, new IIOImage(this.toBufferedImage(type), null, null), param);
+		if(!Encoders.write(this.toBufferedImage(type), "jpg", outputStream, compressionQuality)) {
+			
+			throw new IOException("JPEG does not support this color model!");
+		}
+	}
+	
+	/**
+	 * Writes the image to an uncompressed file without going through {@linkplain ImageIO}.
+	 * The rows are copied straight from the image data into large buffers that are written to the file.
+	 * @param file the file to write to
+	 * @param format the format to use
+	 * @throws IOException if an error occurs during writing or if the image is too large for the format (TGA is limited to 65535x65535px and BMP to 4 GiB).
+	 * @since 1.2.0
+	 */
+	public void write(Path file, RawFormat format) throws IOException {
+		
+		RawCodec.write(this.data, file, format);
+	}
+	
+	/**
+	 * Writes the binary data of the image as JPEG on an output stream, using the highest quality that fits into the given number of bytes.
+	 * The quality is predicted from cheap encodes of a downsampled copy of the image and then refined with real encodes.
+	 * Usually two to five real encodes are needed, never more than nine.
+	 * @param outputStream output stream to write the data on
+	 * @param maxBytes maximum size of the written data
+	 * @return the compression quality that was used
+	 * @throws IOException if an error occurs during writing or if the image does not fit into the given size even with the lowest quality.
+	 * @since 1.2.0
+	 */
+	public float writeJpegWithinBytes(OutputStream outputStream, long maxBytes) throws IOException {
+		
+		// Quality steps at which the downsampled copy is encoded
+		int steps = 10;
+		
+		BufferedImage image = this.toBufferedImage(BufferedImage.TYPE_INT_RGB);
+		int imgWidth = image.getWidth();
+		int imgHeight = image.getHeight();
+		double trialScale = Math.min(1.0D, Math.sqrt(SimpleImage.JPEG_TRIAL_PIXELS / ((double)imgWidth * imgHeight)));
+		BufferedImage trialImage = image;
+		
+		if(trialScale < 1.0D) {
+			
+			trialImage = new BufferedImage(Math.max(1, (int)(imgWidth * trialScale)), Math.max(1, (int)(imgHeight * trialScale)), BufferedImage.TYPE_INT_RGB);
+			Graphics2D graphics = trialImage.createGraphics();
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.drawImage(image, 0, 0, trialImage.getWidth(), trialImage.getHeight(), null);
+			graphics.dispose();
+		}
+		
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		double[] trialSizes = new double[steps + 1];
+		
+		for(int step = 0; step <= steps; step++) {
+			
+			buffer.reset();
+			Encoders.write(trialImage, "jpg", buffer, (float)step / steps);
+			trialSizes[step] = buffer.size();
+		}
+		
+		// The first guess assumes that the full image is as much larger than the trial image as its area is.
+		// The second guess corrects that factor with the size of the first real encode.
+		// After that the quality is searched with the sizes of the real encodes that were closest to the target.
+		
+		double target = maxBytes * 0.98D;
+		double factor = (double)imgWidth * imgHeight / ((double)trialImage.getWidth() * trialImage.getHeight());
+		float lowerQuality = 0.0F;
+		float upperQuality = 1.0F;
+		int lowerSize = -1;
+		int upperSize = -1;
+		float previousQuality = -1.0F;
+		int previousSize = -1;
+		byte[] best = null;
+		float quality = SimpleImage.__predictQuality(trialSizes, target / factor);
+		
+		for(int attempt = 0; attempt < SimpleImage.JPEG_MAX_ATTEMPTS; attempt++) {
+			
+			buffer.reset();
+			Encoders.write(image, "jpg", buffer, quality);
+			int size = buffer.size();
+			
+			if(size <= maxBytes) {
+				
+				lowerQuality = quality;
+				lowerSize = size;
+				best = buffer.toByteArray();
+				
+				if(size >= maxBytes * 0.95D || quality >= 1.0F) {
+					
+					break;
+				}
+			
+			} else {
+				
+				upperQuality = quality;
+				upperSize = size;
+				
+				if(quality <= 0.0F) {
+					
+					break;
+				}
+			}
+			
+			if(upperQuality - lowerQuality < 0.01F && best != null) {
+				
+				break;
+			}
+			
+			float predicted;
+			
+			if(attempt == 0) {
+				
+				factor = size / SimpleImage.__interpolate(trialSizes, quality);
+				predicted = SimpleImage.__predictQuality(trialSizes, target / factor);
+			
+			} else if(lowerSize > 0 && upperSize > 0) {
+				
+				predicted = SimpleImage.__secant(lowerQuality, lowerSize, upperQuality, upperSize, target);
+			
+			} else {
+				
+				predicted = SimpleImage.__secant(previousQuality, previousSize, quality, size, target);
+			}
+			
+			previousQuality = quality;
+			previousSize = size;
+			quality = predicted < upperQuality && (predicted > lowerQuality || (best == null && predicted >= 0.0F)) ? predicted : (lowerQuality + upperQuality) / 2.0F;
+		}
+		
+		// The search only halves its way down towards the lowest quality, so that one is tried before giving up
+		if(best == null && upperQuality > 0.0F) {
+			
+			buffer.reset();
+			Encoders.write(image, "jpg", buffer, 0.0F);
+			
+			if(buffer.size() <= maxBytes) {
+				
+				lowerQuality = 0.0F;
+				best = buffer.toByteArray();
+			}
+		}
+		
+		if(best == null) {
+			
+			throw new IOException("The image does not fit into " + maxBytes + " bytes!");
+		}
+		
+		outputStream.write(best);
+		return lowerQuality;
+	}
+	
+	private static final int[] __nearestIndices(int srcSize, int targetSize) {
+		
+		int[] indices = new int[targetSize];
+		
+		for(int index = 0; index < targetSize; index++) {
+			
+			indices[index] = (int)((long)index * srcSize / targetSize);
+		}
+		
+		return indices;
+	}
+	
+	private static final void __interpolateAtEdge(int[][] source, int[] targetColumn, int targetY, long srcX, long srcY) {
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int x1 = (int)(srcX >> 32);
+		int y1 = (int)(srcY >> 32);
+		
+		if(srcX >= 0 && srcY >= 0 && Utils.inBounds(x1, y1, 0, 0, srcWidth, srcHeight)) {
+			
+			int x2 = x1 + 1;
+			int y2 = y1 + 1;
+			
+			int pixelA = source[x1][y1];
+			int pixelB = Utils.inBounds(x2, y1, 0, 0, srcWidth, srcHeight) ? source[x2][y1] : pixelA;
+			int pixelC = Utils.inBounds(x1, y2, 0, 0, srcWidth, srcHeight) ? source[x1][y2] : pixelA;
+			int pixelD = Utils.inBounds(x2, y2, 0, 0, srcWidth, srcHeight) ? source[x2][y2] : pixelA;
+			
+			targetColumn[targetY] = Utils.interpolateBilinear(pixelA, pixelB, pixelC, pixelD, (int)(srcX >>> 24) & 0xFF, (int)(srcY >>> 24) & 0xFF);
+		}
+	}
+	
+	private static final float __predictQuality(double[] trialSizes, double target) {
+		
+		int steps = trialSizes.length - 1;
+		
+		for(int step = steps; step > 0; step--) {
+			
+			if(trialSizes[step - 1] <= target) {
+				
+				double ratio = trialSizes[step] > trialSizes[step - 1] ? Math.min(1.0D, (target - trialSizes[step - 1]) / (trialSizes[step] - trialSizes[step - 1])) : 1.0D;
+				return (float)((step - 1 + ratio) / steps);
+			}
+		}
+		
+		return 0.0F;
+	}
+	
+	private static final float __secant(float quality1, int size1, float quality2, int size2, double target) {
+		
+		// The size of a JPEG grows roughly exponentially with the quality
+		
+		double logSize1 = Math.log(size1);
+		double logSize2 = Math.log(size2);
+		
+		if(logSize1 == logSize2) {
+			
+			return -1.0F;
+		}
+		
+		return (float)(quality1 + (Math.log(target) - logSize1) * (quality2 - quality1) / (logSize2 - logSize1));
+	}
+	
+	private static final double __interpolate(double[] sizes, float quality) {
+		
+		int steps = sizes.length - 1;
+		double position = quality * steps;
+		int step = Math.min(steps - 1, (int)position);
+		return sizes[step] + (sizes[step + 1] - sizes[step]) * (position - step);
+	}
+	
+	/**
+	 * Encodes the image as PNG and writes it to a file without blocking the caller.
+	 * The image data must not be modified until the returned future has completed.
+	 * @param file the file to write to
+	 * @return a future that completes when the file has been written
+	 * @since 1.2.0
+	 */
+	public CompletableFuture<Void> writeAsync(Path file) {
+		
+		return this.writeAsync(file, "PNG", Workers.cpu());
+	}
+	
+	/**
+	 * Encodes the image and writes it to a file without blocking the caller.
+	 * The image data must not be modified until the returned future has completed.
+	 * @param file the file to write to
+	 * @param format image format to use
+	 * @return a future that completes when the file has been written
+	 * @since 1.2.0
+	 */
+	public CompletableFuture<Void> writeAsync(Path file, String format) {
+		
+		return this.writeAsync(file, format, Workers.cpu());
+	}
+	
+	/**
+	 * Encodes the image and writes it to a file without blocking the caller.
+	 * The encoding runs on the given executor, the actual file access runs on the shared I/O executor.
+	 * The image data must not be modified until the returned future has completed.
+	 * @param file the file to write to
+	 * @param format image format to use
+	 * @param executor executor on which the image should be encoded
+	 * @return a future that completes when the file has been written
+	 * @since 1.2.0
+	 */
+	public CompletableFuture<Void> writeAsync(Path file, String format, Executor executor) {
+		
+		return CompletableFuture.supplyAsync(() -> {
+			
+			try {
+				
+				return this.toBinary(format);
+			
+			} catch(IOException exception) {
+				
+				throw new CompletionException(exception);
+			}
+		
+		}, executor).thenAcceptAsync(binary -> {
+			
+			try {
+				
+				Files.write(file, binary);
+			
+			} catch(IOException exception) {
+				
+				throw new CompletionException(exception);
+			}
+		
+		}, Workers.io());
+	}
+	
+	/**
+	 * Loads an image from a file without blocking the caller.
+	 * The file is read on the shared I/O executor and decoded on the shared CPU executor.
+	 * @param file object representing the file
+	 * @return a future that completes with the loaded image
+	 * @since 1.2.0
+	 */
+	public static final CompletableFuture<SimpleImage> loadAsync(Path file) {
+		
+		return SimpleImage.loadAsync(file, Workers.cpu());
+	}
+	
+	/**
+	 * Loads an image from a file without blocking the caller.
+	 * The file is read on the shared I/O executor and decoded on the given executor.
+	 * @param file object representing the file
+	 * @param executor executor on which the image should be decoded
+	 * @return a future that completes with the loaded image
+	 * @since 1.2.0
+	 */
+	public static final CompletableFuture<SimpleImage> loadAsync(Path file, Executor executor) {
+		
+		return CompletableFuture.supplyAsync(() -> {
+			
+			try {
+				
+				return Files.readAllBytes(file);
+			
+			} catch(IOException exception) {
+				
+				throw new CompletionException(exception);
+			}
+		
+		}, Workers.io()).thenApplyAsync(SimpleImage::decode, executor);
+	}
+	
+	/**
+	 * Loads an image from an URL without blocking the caller.
+	 * The data is fetched on the shared I/O executor and decoded on the shared CPU executor.
+	 * @param url object representing the URL
+	 * @return a future that completes with the loaded image
+	 * @since 1.2.0
+	 */
+	public static final CompletableFuture<SimpleImage> loadAsync(URL url) {
+		
+		return SimpleImage.loadAsync(url, Workers.cpu());
+	}
+	
+	/**
+	 * Loads an image from an URL without blocking the caller.
+	 * The data is fetched on the shared I/O executor and decoded on the given executor.
+	 * @param url object representing the URL
+	 * @param executor executor on which the image should be decoded
+	 * @return a future that completes with the loaded image
+	 * @since 1.2.0
+	 */
+	public static final CompletableFuture<SimpleImage> loadAsync(URL url, Executor executor) {
+		
+		return CompletableFuture.supplyAsync(() -> {
+			
+			try(InputStream inputStream = url.openStream()) {
+				
+				return inputStream.readAllBytes();
+			
+			} catch(IOException exception) {
+				
+				throw new CompletionException(exception);
+			}
+		
+		}, Workers.io()).thenApplyAsync(SimpleImage::decode, executor);
+	}
+	
+	/**
+	 * Reads only the header of an image file to determine its size. The pixel data is not decoded.
+	 * @param file object representing the file
+	 * @return the size of the image
+	 * @throws IOException if an error occurs during reading or if the format is not supported
+	 * @since 1.2.0
+	 */
+	public static final Dimension probe(Path file) throws IOException {
+		
+		try(ImageInputStream inputStream = ImageIO.createImageInputStream(file.toFile())) {
+			
+			Iterator<ImageReader> readers = inputStream != null ? ImageIO.getImageReaders(inputStream) : Collections.emptyIterator();
+			
+			if(!readers.hasNext()) {
+				
+				throw new IOException("No reader found for '" + file + "'!");
+			}
+			
+			ImageReader reader = readers.next();
+			
+			try {
+				
+				reader.setInput(inputStream, true, true);
+				return new Dimension(reader.getWidth(0), reader.getHeight(0));
+			
+			} finally {
+				
+				reader.dispose();
+			}
+		}
+	}
+	
+	private static final SimpleImage decode(byte[] binary) {
+		
+		try {
+			
+			return new SimpleImage(new ByteArrayInputStream(binary));
+		
+		} catch(IOException exception) {
+			
+			throw new CompletionException(exception);
+		}
 	}
 	
 	/**
@@ -554,41 +1101,157 @@ public class SimpleImage {
 		int imgWidth = this.data.length;
 		int imgHeight = this.data[0].length;
 		int[][] target = new int[imgWidth][imgHeight];
-		int arrayX = imgWidth - 1;
-		int arrayY = imgHeight - 1;
 		
+		// Mirroring on the Y axis only changes the order of the columns, so they are copied as a whole
 		if(axis == SimpleImage.AXIS_Y) {
 			
 			for(int x = 0; x < imgWidth; x++) {
 				
-				for(int y = 0; y < imgHeight; y++) {
-					
-					target[arrayX][arrayY] = this.data[x][arrayY];
-					arrayY--;
-				}
-				
-				arrayY = imgHeight -1;
-				arrayX--;
+				System.arraycopy(this.data[x], 0, target[imgWidth - 1 - x], 0, imgHeight);
 			}
 			
 		} else if(axis == SimpleImage.AXIS_X) {
 			
 			for(int x = 0; x < imgWidth; x++) {
 				
-				for(int y = 0; y < imgHeight; y++) {
+				int[] column = this.data[x];
+				int[] targetColumn = target[x];
+				
+				for(int y = 0, arrayY = imgHeight - 1; y < imgHeight; y++, arrayY--) {
 					
-					target[arrayX][arrayY] = this.data[arrayX][y];
-					arrayY--;
+					targetColumn[arrayY] = column[y];
 				}
-				
-				arrayY = imgHeight -1;
-				arrayX--;
 			}
 		}
 		
 		return new SimpleImage(target);
 	}
 	
+	/**
+	 * Rotates the image clockwise by 90 degrees. Unlike {@link #rotate(double)}, width and height are swapped, so no pixel is lost.
+	 * @return the rotated image
+	 * @since 1.2.0
+	 */
+	public SimpleImage rotate90() {
+		
+		return new SimpleImage(Rotations.transpose(this.data, false, true));
+	}
+	
+	/**
+	 * Rotates the image by 180 degrees without losing any pixel.
+	 * @return the rotated image
+	 * @since 1.2.0
+	 */
+	public SimpleImage rotate180() {
+		
+		return new SimpleImage(Rotations.rotate180(this.data));
+	}
+	
+	/**
+	 * Rotates the image clockwise by 270 degrees, which is the same as counter clockwise by 90 degrees.
+	 * Unlike {@link #rotate(double)}, width and height are swapped, so no pixel is lost.
+	 * @return the rotated image
+	 * @since 1.2.0
+	 */
+	public SimpleImage rotate270() {
+		
+		return new SimpleImage(Rotations.transpose(this.data, true, false));
+	}
+	
+	/**
+	 * Mirrors the image on the diagonal from the upper left to the lower right corner, so that rows become columns.
+	 * @return the transposed image
+	 * @since 1.2.0
+	 */
+	public SimpleImage transpose() {
+		
+		return new SimpleImage(Rotations.transpose(this.data, false, false));
+	}
+	
+	/**
+	 * Mirrors the image on the diagonal from the upper right to the lower left corner.
+	 * @return the transversed image
+	 * @since 1.2.0
+	 */
+	public SimpleImage transverse() {
+		
+		return new SimpleImage(Rotations.transpose(this.data, true, true));
+	}
+	
+	/**
+	 * Turns an image that was stored with an EXIF orientation into an upright image.
+	 * All eight orientations are combinations of rotations by multiples of 90 degrees and mirroring, so no pixel is lost.
+	 * @param orientation the value of the EXIF orientation tag (1 - 8)
+	 * @return the upright image, or a copy of the image if the orientation is 1
+	 * @throws IllegalArgumentException if the orientation is not between 1 and 8
+	 * @since 1.2.0
+	 */
+	public SimpleImage orient(int orientation) throws IllegalArgumentException {
+		
+		switch(orientation) {
+			
+			case 1: return this.copy();
+			case 2: return this.mirror(SimpleImage.AXIS_Y);
+			case 3: return this.rotate180();
+			case 4: return this.mirror(SimpleImage.AXIS_X);
+			case 5: return this.transpose();
+			case 6: return this.rotate90();
+			case 7: return this.transverse();
+			case 8: return this.rotate270();
+			default: throw new IllegalArgumentException("The orientation must be between 1 and 8!");
+		}
+	}
+	
+	/**
+	 * Rotates the image clockwise around its center and makes the resulting image just large enough to contain all of the rotated image,
+	 * so that unlike {@link #rotate(double)} no corner is cut off.
+	 * @param degrees degrees by which the image should rotate
+	 * @return the rotated image
+	 * @since 1.2.0
+	 */
+	public SimpleImage rotateExpand(double degrees) {
+		
+		return this.rotateExpand(degrees, Interpolation.NEAREST_NEIGHBOUR);
+	}
+	
+	/**
+	 * Rotates the image clockwise around its center and makes the resulting image just large enough to contain all of the rotated image,
+	 * so that unlike {@link #rotate(double, RotationAlgorithm)} no corner is cut off.
+	 * Only the pixels inside of the rotated image are calculated; the transparent corners around it are left as they are.
+	 * Multiples of 90 degrees are handled by {@link #rotate90()}, {@link #rotate180()} and {@link #rotate270()} without losing any pixel.
+	 * @param degrees degrees by which the image should rotate
+	 * @param interpolation how the colors between the source pixels are calculated
+	 * @return the rotated image
+	 * @since 1.2.0
+	 */
+	public SimpleImage rotateExpand(double degrees, Interpolation interpolation) {
+		
+		switch(Rotations.quarterTurns(degrees)) {
+			
+			case 0: return this.copy();
+			case 1: return this.rotate90();
+			case 2: return this.rotate180();
+			case 3: return this.rotate270();
+		}
+		
+		int imgWidth = this.data.length;
+		int imgHeight = this.data[0].length;
+		double radians = Math.toRadians(degrees);
+		double sin = Math.abs(Math.sin(radians));
+		double cos = Math.abs(Math.cos(radians));
+		
+		// The tiny tolerance keeps rounding errors of the sine and cosine from adding a whole column or row
+		int width = Math.max(1, (int)Math.ceil(imgWidth * cos + imgHeight * sin - 1.0E-9D));
+		int height = Math.max(1, (int)Math.ceil(imgWidth * sin + imgHeight * cos - 1.0E-9D));
+		
+		// Moves the center of the image into the origin, rotates it there and moves it into the center of the resulting image
+		AffineTransform transform = AffineTransform.getTranslateInstance((width - 1) / 2.0D, (height - 1) / 2.0D);
+		transform.rotate(radians);
+		transform.translate(-(imgWidth - 1) / 2.0D, -(imgHeight - 1) / 2.0D);
+		
+		return this.transform(transform, width, height, interpolation);
+	}
+	
 	/**
 	 * Rotates the image.
 	 * @param degrees degrees by which the image should rotate
@@ -753,6 +1416,77 @@ public class SimpleImage {
     	
     	return new SimpleImage(target);
     }
+	
+	/**
+	 * Maps the image onto a new image with an affine transform in a single pass.
+	 * A chain of calls to {@link #scale(int, int)}, {@link #rotate(double)}, {@link #mirror(int)} and {@link #crop(int, int, int, int)}
+	 * creates a new image and resamples it again with every call, so the errors add up.
+	 * Combining the chain into one transform, for example with a {@linkplain TransformBuilder}, samples every target pixel only once from the original image.
+	 * Target pixels that map outside of the image stay transparent; they are not even visited.
+	 * @param transform transform that maps positions on this image to positions on the new image
+	 * @param width width of the resulting image
+	 * @param height height of the resulting image
+	 * @param interpolation how the colors between the source pixels are calculated
+	 * @return the transformed image
+	 * @throws IllegalArgumentException if the size is smaller than 1x1 or if the transform can not be inverted
+	 * @since 1.2.0
+	 */
+	public SimpleImage transform(AffineTransform transform, int width, int height, Interpolation interpolation) throws IllegalArgumentException {
+		
+		if(width < 1 || height < 1) {
+			
+			throw new IllegalArgumentException("An image must be at least 1x1px of size!");
+		}
+		
+		AffineTransform inverse;
+		
+		try {
+			
+			inverse = transform.createInverse();
+		
+		} catch(NoninvertibleTransformException exception) {
+			
+			throw new IllegalArgumentException("The transform can not be inverted!", exception);
+		}
+		
+		int[][] target = new int[width][height];
+		Affine.transform(this.data, target, inverse, interpolation == Interpolation.BILINEAR, Parallel.DEFAULT_PARALLELISM);
+		
+		return new SimpleImage(target);
+	}
+	
+	/**
+	 * Applies all operations of a {@linkplain TransformBuilder} in a single pass.
+	 * @param builder the builder with the operations
+	 * @param interpolation how the colors between the source pixels are calculated
+	 * @return the transformed image
+	 * @since 1.2.0
+	 */
+	public SimpleImage transform(TransformBuilder builder, Interpolation interpolation) {
+		
+		return this.transform(builder.getTransform(), builder.getWidth(), builder.getHeight(), interpolation);
+	}
+	
+	/**
+	 * Warps the image with a map that was calculated before. Applying the same map on many images is much faster than
+	 * calculating the warp for each of them, as the source pixels and the weights are already known.
+	 * @param map the map
+	 * @return the warped image with the size of the target of the map
+	 * @throws IllegalArgumentException if the size of the image is not the source size of the map
+	 * @since 1.2.0
+	 */
+	public SimpleImage remap(RemapMap map) throws IllegalArgumentException {
+		
+		if(this.data.length != map.getSourceWidth() || this.data[0].length != map.getSourceHeight()) {
+			
+			throw new IllegalArgumentException("The size of the image does not match the source size of the map!");
+		}
+		
+		int[][] target = new int[map.getWidth()][map.getHeight()];
+		map.apply(this.data, target);
+		
+		return new SimpleImage(target);
+	}
     
     /**
      * Applies a filter to the image.
@@ -829,6 +1563,7 @@ public class SimpleImage {
 	
 	/**
 	 * Scales the image proportional to fit the given size.
+	 * If the image shrinks by more than a factor of 2, {@link #SCALE_AREA_AVERAGING} is used, else {@link #SCALE_NEAREST_NEIGHBOUR}.
 	 * @param width maximum width of the resulting image
 	 * @param height maximum height of the resulting image
 	 * @return the scaled image
@@ -837,11 +1572,17 @@ public class SimpleImage {
 	 */
 	public SimpleImage scaleToFit(int width, int height) throws IllegalArgumentException {
 		
-		return this.scaleToFit(width, height, SimpleImage.SCALE_NEAREST_NEIGHBOUR);
+		Dimension size = SimpleImage.fitSize(this.data.length, this.data[0].length, width, height);
+		
+		// Nearest neighbour would skip most of the source pixels and produce moire patterns
+		boolean shrinksALot = this.data.length > size.width * 2L || this.data[0].length > size.height * 2L;
+		
+		return this.scale(size.width, size.height, shrinksALot ? SimpleImage.SCALE_AREA_AVERAGING : SimpleImage.SCALE_NEAREST_NEIGHBOUR);
 	}
 	
 	/**
 	 * Scales the image proportional to fit the given size.
+	 * If the image shrinks by more than a factor of 2, {@link #SCALE_AREA_AVERAGING} is used, else {@link #SCALE_NEAREST_NEIGHBOUR}.
 	 * @param size maximum size of the resulting image
 	 * @return the scaled image
 	 * @throws IllegalArgumentException If width or height is smaller than 1
@@ -849,7 +1590,7 @@ public class SimpleImage {
 	 */
 	public SimpleImage scaleToFit(Dimension size) throws IllegalArgumentException {
 		
-		return this.scaleToFit(size.width, size.height, SimpleImage.SCALE_NEAREST_NEIGHBOUR);
+		return this.scaleToFit(size.width, size.height);
 	}
 	
 	/**
@@ -876,8 +1617,11 @@ public class SimpleImage {
 	 */
 	public SimpleImage scaleToFit(int width, int height, ScaleAlgorithm algorithm) throws IllegalArgumentException {
 		
-		int imgWidth = this.data.length;
-		int imgHeight = this.data[0].length;
+		Dimension size = SimpleImage.fitSize(this.data.length, this.data[0].length, width, height);
+		return this.scale(size.width, size.height, algorithm);
+	}
+	
+	static final Dimension fitSize(int imgWidth, int imgHeight, int width, int height) {
 		
 		float scaledWidth = (float)imgWidth / width;
         float scaledHeight = (float)imgHeight / height;
@@ -893,9 +1637,47 @@ public class SimpleImage {
             scaledHeight = height;
         }
         
-        return this.scale((int)scaledWidth, (int)scaledHeight, algorithm);
+        return new Dimension((int)scaledWidth, (int)scaledHeight);
 	}
 
+	/**
+	 * Builds a chain of images where each one is half as wide and high as the one before.
+	 * Every level is computed from the level above it, so building all levels costs only a third more than
+	 * a single downscale by 2. Use {@link ImagePyramid#scaleToFit(int, int)} to serve many different sizes from the pyramid.
+	 * @param levels number of levels, including this image as the first level. It is limited to the number of levels until the size is 1x1.
+	 * @return the pyramid
+	 * @throws IllegalArgumentException If levels is smaller than 1
+	 * @since 1.2.0
+	 */
+	public ImagePyramid buildPyramid(int levels) throws IllegalArgumentException {
+		
+		if(levels < 1) {
+			
+			throw new IllegalArgumentException("A pyramid must have at least 1 level!");
+		}
+		
+		return new ImagePyramid(this.data, levels);
+	}
+	
+	/**
+	 * Builds a summed-area table of the image, which answers the sum or mean of any rectangle in constant time.
+	 * The value of each pixel is the sum of the given channels, for example {@code integral(ColorChannel.RED, ColorChannel.GREEN, ColorChannel.BLUE)}
+	 * for the brightness. The table is built in parallel and can be used for any number of queries.
+	 * @param channels the color channels to sum up
+	 * @return the summed-area table
+	 * @throws IllegalArgumentException if no channel is given
+	 * @since 1.2.0
+	 */
+	public IntegralImage integral(ColorChannel... channels) throws IllegalArgumentException {
+		
+		if(channels.length == 0) {
+			
+			throw new IllegalArgumentException("At least one color channel is needed!");
+		}
+		
+		return new IntegralImage(this.data, channels, Parallel.DEFAULT_PARALLELISM);
+	}
+	
 	/**
 	 * Scales the image to the given size.
 	 * @param width width of the resulting image
@@ -1321,23 +2103,33 @@ public class SimpleImage {
 	public BufferedImage toBufferedImage(int type) {
 		
 		// BufferedImage#setRGB(x, y, rgb) destroys the hardware acceleration of the resulting image.
-		// In order to preserve the hardware acceleration the image will be drawn onto the resulting image with the Graphics class.
-		// Another reason is that I don't have to worry about color models.
+		// Writing whole rows into the raster does not, and the pixels of a TYPE_INT_ARGB raster are exactly our pixels.
+		// Other color models are converted by drawing the image with the Graphics class, so I don't have to worry about them.
 		
 		int imgWidth = this.data.length;
 		int imgHeight = this.data[0].length;
-		BufferedImage image = new BufferedImage(imgWidth, imgHeight, type);
-		Graphics graphics = image.createGraphics();
+		BufferedImage argbImage = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_INT_ARGB);
+		WritableRaster raster = argbImage.getRaster();
+		int[] row = new int[imgWidth];
 		
-		for(int x = 0; x < imgWidth; x++) {
-			
-			for(int y = 0; y < imgHeight; y++) {
+		for(int y = 0; y < imgHeight; y++) {
 
-				graphics.setColor(new Color(this.data[x][y], true));
-				graphics.fillRect(x, y, 1, 1);
+			for(int x = 0; x < imgWidth; x++) {
+				
+				row[x] = this.data[x][y];
 			}
+			
+			raster.setDataElements(0, y, imgWidth, 1, row);
+		}
+		
+		if(type == BufferedImage.TYPE_INT_ARGB) {
+			
+			return argbImage;
 		}
 		
+		BufferedImage image = new BufferedImage(imgWidth, imgHeight, type);
+		Graphics graphics = image.createGraphics();
+		graphics.drawImage(argbImage, 0, 0, null);
 		graphics.dispose();
 		return image;
 	}
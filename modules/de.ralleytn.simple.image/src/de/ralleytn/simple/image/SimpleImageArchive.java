@@ -0,0 +1,510 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A single file that contains many images, meant for large sets of small images like icons.
+ * The file starts with a hash table that maps the names to the images, followed by the pixel data of all images,
+ * either uncompressed or deflated. The whole file is memory mapped when it is opened, so looking up and loading an image
+ * does not need any system calls. Uncompressed images are copied into a new {@linkplain SimpleImage} with one bulk copy per column.
+ * Archives are created with a {@linkplain SimpleImageArchive.Packer}.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class SimpleImageArchive {
+	
+	private static final int MAGIC = 0x414D4953; // "SIMA" in little endian
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int ENTRY_SIZE = 32;
+	private static final int ENCODING_RAW = 0;
+	private static final int ENCODING_DEFLATE = 1;
+	
+	private final ByteBuffer buffer;
+	private final int entries;
+	private final int tableSize;
+	private final int entryOffset;
+	private final int nameOffset;
+	
+	private SimpleImageArchive(ByteBuffer buffer) throws IOException {
+		
+		if(buffer.capacity() < SimpleImageArchive.HEADER_SIZE || buffer.getInt(0) != SimpleImageArchive.MAGIC) {
+			
+			throw new IOException("The file is not an image archive!");
+		}
+		
+		if(buffer.getInt(4) != SimpleImageArchive.VERSION) {
+			
+			throw new IOException("Unsupported archive version " + buffer.getInt(4) + "!");
+		}
+		
+		this.buffer = buffer;
+		this.entries = buffer.getInt(8);
+		this.tableSize = buffer.getInt(12);
+		this.entryOffset = SimpleImageArchive.HEADER_SIZE + this.tableSize * 4;
+		this.nameOffset = this.entryOffset + this.entries * SimpleImageArchive.ENTRY_SIZE;
+		
+		if(Integer.bitCount(this.tableSize) != 1 || this.tableSize <= this.entries || this.nameOffset > buffer.capacity()) {
+			
+			throw new IOException("The archive is corrupted!");
+		}
+	}
+	
+	/**
+	 * Opens an archive by mapping it into memory. The file is closed right away, the mapping stays valid until the archive is garbage collected.
+	 * @param file the archive file
+	 * @return the opened archive
+	 * @throws IOException if an error occurs during reading or if the file is not an image archive.
+	 * @since 1.2.0
+	 */
+	public static final SimpleImageArchive open(Path file) throws IOException {
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			
+			long size = channel.size();
+			
+			if(size > Integer.MAX_VALUE) {
+				
+				throw new IOException("Archives larger than 2 GiB are not supported!");
+			}
+			
+			return new SimpleImageArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN));
+		}
+	}
+	
+	/**
+	 * Loads an image from the archive. This method may be called from multiple threads at the same time.
+	 * @param name name of the image
+	 * @return the image or {@code null} if the archive does not contain an image with the given name
+	 * @throws IOException if the data of the image is corrupted.
+	 * @since 1.2.0
+	 */
+	public SimpleImage get(String name) throws IOException {
+		
+		int entry = this.find(name);
+		
+		if(entry < 0) {
+			
+			return null;
+		}
+		
+		int width = this.buffer.getInt(entry + 12);
+		int height = this.buffer.getInt(entry + 16);
+		int encoding = this.buffer.getInt(entry + 20);
+		int dataOffset = this.buffer.getInt(entry + 24);
+		int dataLength = this.buffer.getInt(entry + 28);
+		long size = (long)width * height * 4;
+		
+		// The entry is checked before anything is allocated, so that a corrupt archive can not cause anything else than an IOException
+		boolean validSize = width >= 1 && height >= 1 && size <= Integer.MAX_VALUE;
+		boolean validData = dataOffset >= 0 && dataLength >= 0 && (long)dataOffset + dataLength <= this.buffer.capacity();
+		boolean validEncoding = encoding == SimpleImageArchive.ENCODING_DEFLATE || (encoding == SimpleImageArchive.ENCODING_RAW && dataLength >= size);
+		
+		if(!validSize || !validData || !validEncoding) {
+			
+			throw new IOException("The data of " + name + " is corrupted!");
+		}
+		
+		int[][] data = new int[width][height];
+		IntBuffer pixels;
+		
+		if(encoding == SimpleImageArchive.ENCODING_DEFLATE) {
+			
+			byte[] deflated = new byte[dataLength];
+			byte[] inflated = new byte[(int)size];
+			Inflater inflater = new Inflater();
+			this.__slice(dataOffset, dataLength).get(deflated);
+			
+			try {
+				
+				inflater.setInput(deflated);
+				
+				if(inflater.inflate(inflated) != inflated.length) {
+					
+					throw new IOException("The data of " + name + " is corrupted!");
+				}
+			
+			} catch(DataFormatException exception) {
+				
+				throw new IOException("The data of " + name + " is corrupted!", exception);
+			
+			} finally {
+				
+				inflater.end();
+			}
+			
+			pixels = ByteBuffer.wrap(inflated).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		
+		} else {
+			
+			pixels = this.__slice(dataOffset, dataLength).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		}
+		
+		// The pixels are stored column by column, just like the image data
+		for(int x = 0; x < width; x++) {
+			
+			pixels.get(data[x]);
+		}
+		
+		return new SimpleImage(data);
+	}
+	
+	/**
+	 * @param name name of the image
+	 * @return {@code true} if the archive contains an image with the given name, else {@code false}
+	 * @since 1.2.0
+	 */
+	public boolean contains(String name) {
+		
+		return this.find(name) >= 0;
+	}
+	
+	/**
+	 * @return the number of images in the archive
+	 * @since 1.2.0
+	 */
+	public int size() {
+		
+		return this.entries;
+	}
+	
+	/**
+	 * @return the names of all images in the order in which they were added to the packer
+	 * @since 1.2.0
+	 */
+	public List<String> getNames() {
+		
+		List<String> names = new ArrayList<>(this.entries);
+		
+		for(int index = 0; index < this.entries; index++) {
+			
+			names.add(this.name(this.entryOffset + index * SimpleImageArchive.ENTRY_SIZE));
+		}
+		
+		return Collections.unmodifiableList(names);
+	}
+	
+	private int find(String name) {
+		
+		int hash = name.hashCode();
+		int mask = this.tableSize - 1;
+		byte[] nameBytes = null;
+		
+		// Open addressing with linear probing, a slot value of 0 marks an empty slot
+		for(int slot = SimpleImageArchive.__mix(hash) & mask;; slot = (slot + 1) & mask) {
+			
+			int value = this.buffer.getInt(SimpleImageArchive.HEADER_SIZE + slot * 4);
+			
+			if(value == 0) {
+				
+				return -1;
+			}
+			
+			int entry = this.entryOffset + (value - 1) * SimpleImageArchive.ENTRY_SIZE;
+			
+			if(this.buffer.getInt(entry) == hash) {
+				
+				if(nameBytes == null) {
+					
+					nameBytes = name.getBytes(StandardCharsets.UTF_8);
+				}
+				
+				if(this.nameEquals(entry, nameBytes)) {
+					
+					return entry;
+				}
+			}
+		}
+	}
+	
+	private boolean nameEquals(int entry, byte[] name) {
+		
+		int offset = this.nameOffset + this.buffer.getInt(entry + 4);
+		int length = this.buffer.getInt(entry + 8);
+		
+		if(length != name.length) {
+			
+			return false;
+		}
+		
+		for(int index = 0; index < length; index++) {
+			
+			if(this.buffer.get(offset + index) != name[index]) {
+				
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private String name(int entry) {
+		
+		byte[] name = new byte[this.buffer.getInt(entry + 8)];
+		this.__slice(this.nameOffset + this.buffer.getInt(entry + 4), name.length).get(name);
+		return new String(name, StandardCharsets.UTF_8);
+	}
+	
+	private ByteBuffer __slice(int offset, int length) {
+		
+		// ByteBuffer.slice(int, int) and the absolute bulk methods only exist since Java 13
+		return this.buffer.duplicate().position(offset).limit(offset + length).slice();
+	}
+	
+	private static final int __mix(int hash) {
+		
+		// String.hashCode() has weak low bits for short names with a common prefix
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Collects images and writes them into an archive file that can be opened with {@link SimpleImageArchive#open(Path)}.
+	 * The images are encoded when they are added, so the packer keeps only the encoded data in memory.
+	 * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+	 * @version 1.2.0
+	 * @since 1.2.0
+	 */
+	public static class Packer {
+		
+		private final Map<String, Blob> blobs = new LinkedHashMap<>();
+		private boolean compressed;
+		private long size;
+		
+		/**
+		 * Creates a packer that stores the images uncompressed.
+		 * @since 1.2.0
+		 */
+		public Packer() {
+			
+			this(false);
+		}
+		
+		/**
+		 * @param compressed {@code true} if the images should be deflated
+		 * @since 1.2.0
+		 */
+		public Packer(boolean compressed) {
+			
+			this.compressed = compressed;
+		}
+		
+		/**
+		 * Adds an image to the archive. If there already is an image with the same name, it is replaced.
+		 * @param name name of the image
+		 * @param image the image
+		 * @since 1.2.0
+		 */
+		public void add(String name, SimpleImage image) {
+			
+			int[][] data = image.getData();
+			int width = data.length;
+			int height = data[0].length;
+			ByteBuffer raw = ByteBuffer.allocate(width * height * 4).order(ByteOrder.LITTLE_ENDIAN);
+			IntBuffer pixels = raw.asIntBuffer();
+			
+			for(int x = 0; x < width; x++) {
+				
+				pixels.put(data[x]);
+			}
+			
+			byte[] bytes = raw.array();
+			int encoding = SimpleImageArchive.ENCODING_RAW;
+			
+			if(this.compressed) {
+				
+				Deflater deflater = new Deflater();
+				byte[] deflated = new byte[bytes.length];
+				
+				try {
+					
+					deflater.setInput(bytes);
+					deflater.finish();
+					int length = deflater.deflate(deflated);
+					
+					// Images that do not get any smaller are stored uncompressed as those can be copied directly
+					if(deflater.finished() && length < bytes.length) {
+						
+						bytes = Arrays.copyOf(deflated, length);
+						encoding = SimpleImageArchive.ENCODING_DEFLATE;
+					}
+				
+				} finally {
+					
+					deflater.end();
+				}
+			}
+			
+			Blob previous = this.blobs.put(name, new Blob(width, height, encoding, bytes));
+			this.size += bytes.length - (previous != null ? previous.data.length : 0);
+		}
+		
+		/**
+		 * Writes all images that were added so far into an archive file.
+		 * @param file the file to write to
+		 * @throws IOException if an error occurs during writing or if the archive would be larger than 2 GiB.
+		 * @since 1.2.0
+		 */
+		public void write(Path file) throws IOException {
+			
+			int entries = this.blobs.size();
+			int tableSize = Integer.highestOneBit(Math.max(1, entries * 2 - 1)) << 1;
+			List<byte[]> names = new ArrayList<>(entries);
+			int namesLength = 0;
+			
+			for(String name : this.blobs.keySet()) {
+				
+				byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				names.add(bytes);
+				namesLength += bytes.length;
+			}
+			
+			long indexSize = SimpleImageArchive.HEADER_SIZE + tableSize * 4L + entries * (long)SimpleImageArchive.ENTRY_SIZE + namesLength;
+			long dataOffset = (indexSize + 7) & ~7L;
+			
+			if(dataOffset + this.size + entries * 8L > Integer.MAX_VALUE) {
+				
+				throw new IOException("Archives larger than 2 GiB are not supported!");
+			}
+			
+			ByteBuffer index = ByteBuffer.allocate((int)dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+			index.putInt(SimpleImageArchive.MAGIC);
+			index.putInt(SimpleImageArchive.VERSION);
+			index.putInt(entries);
+			index.putInt(tableSize);
+			
+			int entry = 0;
+			int nameOffset = 0;
+			int entryOffset = SimpleImageArchive.HEADER_SIZE + tableSize * 4;
+			int blobOffset = (int)dataOffset;
+			int namesOffset = entryOffset + entries * SimpleImageArchive.ENTRY_SIZE;
+			
+			for(Map.Entry<String, Blob> mapping : this.blobs.entrySet()) {
+				
+				int hash = mapping.getKey().hashCode();
+				int slot = SimpleImageArchive.__mix(hash) & (tableSize - 1);
+				
+				while(index.getInt(SimpleImageArchive.HEADER_SIZE + slot * 4) != 0) {
+					
+					slot = (slot + 1) & (tableSize - 1);
+				}
+				
+				index.putInt(SimpleImageArchive.HEADER_SIZE + slot * 4, entry + 1);
+				
+				Blob blob = mapping.getValue();
+				byte[] name = names.get(entry);
+				int position = entryOffset + entry * SimpleImageArchive.ENTRY_SIZE;
+				index.putInt(position, hash);
+				index.putInt(position + 4, nameOffset);
+				index.putInt(position + 8, name.length);
+				index.putInt(position + 12, blob.width);
+				index.putInt(position + 16, blob.height);
+				index.putInt(position + 20, blob.encoding);
+				index.putInt(position + 24, blobOffset);
+				index.putInt(position + 28, blob.data.length);
+				index.duplicate().position(namesOffset + nameOffset).put(name);
+				
+				// Every blob starts at a multiple of 8 so that the bulk copies read aligned memory
+				nameOffset += name.length;
+				blobOffset += (blob.data.length + 7) & ~7;
+				entry++;
+			}
+			
+			index.clear();
+			
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				
+				SimpleImageArchive.__writeFully(channel, index);
+				ByteBuffer padding = ByteBuffer.allocate(8);
+				
+				for(Blob blob : this.blobs.values()) {
+					
+					SimpleImageArchive.__writeFully(channel, ByteBuffer.wrap(blob.data));
+					SimpleImageArchive.__writeFully(channel, padding.clear().limit(((blob.data.length + 7) & ~7) - blob.data.length));
+				}
+			}
+		}
+		
+		/**
+		 * @param compressed {@code true} if images that are added from now on should be deflated
+		 * @since 1.2.0
+		 */
+		public void setCompressed(boolean compressed) {
+			
+			this.compressed = compressed;
+		}
+		
+		/**
+		 * @return {@code true} if added images are deflated, else {@code false}
+		 * @since 1.2.0
+		 */
+		public boolean isCompressed() {
+			
+			return this.compressed;
+		}
+	}
+	
+	private static final void __writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		
+		while(buffer.hasRemaining()) {
+			
+			channel.write(buffer);
+		}
+	}
+	
+	private static final class Blob {
+		
+		private final int width;
+		private final int height;
+		private final int encoding;
+		private final byte[] data;
+		
+		private Blob(int width, int height, int encoding, byte[] data) {
+			
+			this.width = width;
+			this.height = height;
+			this.encoding = encoding;
+			this.data = data;
+		}
+	}
+}
@@ -0,0 +1,433 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Represents an image file with multiple frames like an animated GIF or a multi page TIFF.
+ * The frames are decoded lazily one after another when iterating over the sequence, so no matter how many frames
+ * there are, only one of them is held in memory at a time. Frames of animated GIFs are composited onto a single canvas
+ * that is reused for the whole animation, respecting the disposal method of each frame.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class SimpleImageSequence implements Iterable<SimpleImage>, Closeable {
+	
+	private static final String GIF_STREAM_METADATA = "javax_imageio_gif_stream_1.0";
+	private static final String GIF_IMAGE_METADATA = "javax_imageio_gif_image_1.0";
+	
+	private final ImageInputStream inputStream;
+	private final ImageReader reader;
+	private final boolean gif;
+	
+	/**
+	 * Opens a sequence from a file. Nothing but the header is read until the frames are requested.
+	 * @param file object representing the file
+	 * @throws IOException if an error occurs during reading or if the format is not supported
+	 * @since 1.2.0
+	 */
+	public SimpleImageSequence(Path file) throws IOException {
+		
+		this(ImageIO.createImageInputStream(file.toFile()));
+	}
+	
+	/**
+	 * Opens a sequence from an input stream.
+	 * The input stream will not be closed automatically. The developer has to do it himself.
+	 * @param inputStream the input stream to read the data from
+	 * @throws IOException if an error occurs during reading or if the format is not supported
+	 * @since 1.2.0
+	 */
+	public SimpleImageSequence(InputStream inputStream) throws IOException {
+		
+		this(ImageIO.createImageInputStream(inputStream));
+	}
+	
+	private SimpleImageSequence(ImageInputStream inputStream) throws IOException {
+		
+		if(inputStream == null) {
+			
+			throw new IOException("Could not open image stream!");
+		}
+		
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+		
+		if(!readers.hasNext()) {
+			
+			inputStream.close();
+			throw new IOException("No reader found for this image format!");
+		}
+		
+		this.inputStream = inputStream;
+		this.reader = readers.next();
+		this.reader.setInput(inputStream, false, false);
+		this.gif = "gif".equalsIgnoreCase(this.reader.getFormatName());
+	}
+	
+	/**
+	 * Returns the number of frames. Some formats do not store this in their header,
+	 * in which case the whole file has to be scanned once.
+	 * @return the number of frames
+	 * @throws IOException if an error occurs during reading
+	 * @since 1.2.0
+	 */
+	public int getNumberOfFrames() throws IOException {
+		
+		return this.reader.getNumImages(true);
+	}
+	
+	/**
+	 * @param index index of the frame
+	 * @return how long the frame should be shown in milliseconds or {@code 0} if the format does not define it
+	 * @throws IOException if an error occurs during reading
+	 * @since 1.2.0
+	 */
+	public int getDelay(int index) throws IOException {
+		
+		if(this.gif) {
+			
+			IIOMetadataNode control = SimpleImageSequence.__getChild(this.reader.getImageMetadata(index).getAsTree(SimpleImageSequence.GIF_IMAGE_METADATA), "GraphicControlExtension");
+			
+			if(control != null) {
+				
+				return Integer.parseInt(control.getAttribute("delayTime")) * 10;
+			}
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Decodes all frames one after another, runs them through the given operation and encodes the result.
+	 * Only one frame is held in memory at a time. For GIF output the delay of each frame is preserved.
+	 * @param outputStream output stream to write the data on
+	 * @param format image format to use, must support writing multiple images into one file(GIF or TIFF)
+	 * @param operation what should be done with each frame, for example {@code frame -> frame.filter(filter)}
+	 * @throws IOException if an error occurs during reading or writing or if the format does not support sequences
+	 * @since 1.2.0
+	 */
+	public void write(OutputStream outputStream, String format, UnaryOperator<SimpleImage> operation) throws IOException {
+		
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+		
+		if(!writers.hasNext()) {
+			
+			throw new IOException("No writer found for the format '" + format + "'!");
+		}
+		
+		ImageWriter writer = writers.next();
+		
+		try(ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+			
+			if(!writer.canWriteSequence()) {
+				
+				throw new IOException("The format '" + format + "' does not support multiple frames!");
+			}
+			
+			boolean gifOutput = "gif".equalsIgnoreCase(writer.getOriginatingProvider().getFormatNames()[0]);
+			writer.setOutput(imageOutputStream);
+			writer.prepareWriteSequence(null);
+			int index = 0;
+			
+			for(Iterator<SimpleImage> iterator = this.iterator(); iterator.hasNext(); index++) {
+				
+				BufferedImage frame = operation.apply(iterator.next()).toBufferedImage();
+				IIOMetadata metadata = null;
+				
+				if(gifOutput) {
+					
+					metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(frame), null);
+					SimpleImageSequence.__setGifFrameMetadata(metadata, this.getDelay(index) / 10, index == 0);
+				}
+				
+				writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+			}
+			
+			writer.endWriteSequence();
+		
+		} catch(UncheckedIOException exception) {
+			
+			throw exception.getCause();
+		
+		} finally {
+			
+			writer.dispose();
+		}
+	}
+	
+	/**
+	 * Returns an iterator that decodes the frames lazily. Each iterator composites the frames of animated GIFs
+	 * onto its own canvas which is shared by all frames it returns.
+	 * If an error occurs during reading, the iterator throws an {@linkplain UncheckedIOException}.
+	 * @return an iterator over all frames
+	 * @since 1.2.0
+	 */
+	@Override
+	public Iterator<SimpleImage> iterator() {
+		
+		return this.gif ? new GifFrameIterator() : new FrameIterator();
+	}
+	
+	/**
+	 * Closes the underlying stream and frees the reader.
+	 * @throws IOException if an error occurs during closing
+	 * @since 1.2.0
+	 */
+	@Override
+	public void close() throws IOException {
+		
+		this.reader.dispose();
+		this.inputStream.close();
+	}
+	
+	private static final IIOMetadataNode __getChild(Node root, String name) {
+		
+		NodeList children = root.getChildNodes();
+		
+		for(int index = 0; index < children.getLength(); index++) {
+			
+			if(children.item(index).getNodeName().equals(name)) {
+				
+				return (IIOMetadataNode)children.item(index);
+			}
+		}
+		
+		return null;
+	}
+	
+	private static final void __setGifFrameMetadata(IIOMetadata metadata, int delayTime, boolean first) throws IOException {
+		
+		IIOMetadataNode root = (IIOMetadataNode)metadata.getAsTree(SimpleImageSequence.GIF_IMAGE_METADATA);
+		IIOMetadataNode control = SimpleImageSequence.__getChild(root, "GraphicControlExtension");
+		
+		if(control == null) {
+			
+			control = new IIOMetadataNode("GraphicControlExtension");
+			control.setAttribute("userInputFlag", "FALSE");
+			control.setAttribute("transparentColorFlag", "FALSE");
+			control.setAttribute("transparentColorIndex", "0");
+			root.appendChild(control);
+		}
+		
+		// Every frame is a complete image, so the previous one must be cleared before the next one is drawn
+		control.setAttribute("disposalMethod", "restoreToBackgroundColor");
+		control.setAttribute("delayTime", Integer.toString(delayTime));
+		
+		if(first) {
+			
+			// NETSCAPE2.0 extension, makes the animation loop forever
+			
+			IIOMetadataNode extensions = new IIOMetadataNode("ApplicationExtensions");
+			IIOMetadataNode extension = new IIOMetadataNode("ApplicationExtension");
+			extension.setAttribute("applicationID", "NETSCAPE");
+			extension.setAttribute("authenticationCode", "2.0");
+			extension.setUserObject(new byte[] {1, 0, 0});
+			extensions.appendChild(extension);
+			root.appendChild(extensions);
+		}
+		
+		try {
+			
+			metadata.setFromTree(SimpleImageSequence.GIF_IMAGE_METADATA, root);
+		
+		} catch(IIOInvalidTreeException exception) {
+			
+			throw new IOException(exception);
+		}
+	}
+	
+	private class FrameIterator implements Iterator<SimpleImage> {
+		
+		int index;
+		private int numberOfFrames = -2;
+		
+		@Override
+		public boolean hasNext() {
+			
+			try {
+				
+				if(this.numberOfFrames == -2) {
+					
+					this.numberOfFrames = SimpleImageSequence.this.reader.getNumImages(false);
+				}
+				
+				if(this.numberOfFrames >= 0) {
+					
+					return this.index < this.numberOfFrames;
+				}
+				
+				// The number of frames is unknown, so we only check whether there is another one
+				SimpleImageSequence.this.reader.getWidth(this.index);
+				return true;
+			
+			} catch(IndexOutOfBoundsException exception) {
+				
+				return false;
+			
+			} catch(IOException exception) {
+				
+				throw new UncheckedIOException(exception);
+			}
+		}
+		
+		@Override
+		public SimpleImage next() {
+			
+			if(!this.hasNext()) {
+				
+				throw new NoSuchElementException();
+			}
+			
+			try {
+				
+				return this.read(this.index++);
+			
+			} catch(IOException exception) {
+				
+				throw new UncheckedIOException(exception);
+			}
+		}
+		
+		SimpleImage read(int index) throws IOException {
+			
+			return new SimpleImage(SimpleImageSequence.this.reader.read(index));
+		}
+	}
+	
+	private class GifFrameIterator extends FrameIterator {
+		
+		private BufferedImage canvas;
+		private Rectangle previousArea;
+		private String previousDisposal;
+		private int[] backup;
+		
+		@Override
+		SimpleImage read(int index) throws IOException {
+			
+			ImageReader reader = SimpleImageSequence.this.reader;
+			BufferedImage frame = reader.read(index);
+			IIOMetadataNode metadata = (IIOMetadataNode)reader.getImageMetadata(index).getAsTree(SimpleImageSequence.GIF_IMAGE_METADATA);
+			IIOMetadataNode descriptor = SimpleImageSequence.__getChild(metadata, "ImageDescriptor");
+			IIOMetadataNode control = SimpleImageSequence.__getChild(metadata, "GraphicControlExtension");
+			int left = descriptor != null ? Integer.parseInt(descriptor.getAttribute("imageLeftPosition")) : 0;
+			int top = descriptor != null ? Integer.parseInt(descriptor.getAttribute("imageTopPosition")) : 0;
+			
+			if(this.canvas == null) {
+				
+				this.createCanvas(frame);
+			
+			} else {
+				
+				this.dispose();
+			}
+			
+			Rectangle area = new Rectangle(left, top, frame.getWidth(), frame.getHeight()).intersection(new Rectangle(0, 0, this.canvas.getWidth(), this.canvas.getHeight()));
+			String disposal = control != null ? control.getAttribute("disposalMethod") : "none";
+			
+			if("restoreToPrevious".equals(disposal) && !area.isEmpty()) {
+				
+				this.canvas.getRaster().getDataElements(area.x, area.y, area.width, area.height, this.backup);
+			}
+			
+			Graphics2D graphics = this.canvas.createGraphics();
+			graphics.drawImage(frame, left, top, null);
+			graphics.dispose();
+			
+			this.previousArea = area;
+			this.previousDisposal = disposal;
+			
+			return new SimpleImage(this.canvas);
+		}
+		
+		private void createCanvas(BufferedImage firstFrame) throws IOException {
+			
+			int width = firstFrame.getWidth();
+			int height = firstFrame.getHeight();
+			IIOMetadata streamMetadata = SimpleImageSequence.this.reader.getStreamMetadata();
+			
+			if(streamMetadata != null) {
+				
+				IIOMetadataNode screen = SimpleImageSequence.__getChild(streamMetadata.getAsTree(SimpleImageSequence.GIF_STREAM_METADATA), "LogicalScreenDescriptor");
+				
+				if(screen != null && Integer.parseInt(screen.getAttribute("logicalScreenWidth")) > 0 && Integer.parseInt(screen.getAttribute("logicalScreenHeight")) > 0) {
+					
+					width = Integer.parseInt(screen.getAttribute("logicalScreenWidth"));
+					height = Integer.parseInt(screen.getAttribute("logicalScreenHeight"));
+				}
+			}
+			
+			this.canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			this.backup = new int[width * height];
+		}
+		
+		private void dispose() {
+			
+			if(this.previousArea.isEmpty()) {
+				
+				return;
+			}
+			
+			if("restoreToBackgroundColor".equals(this.previousDisposal)) {
+				
+				Graphics2D graphics = this.canvas.createGraphics();
+				graphics.setComposite(AlphaComposite.Clear);
+				graphics.fill(this.previousArea);
+				graphics.dispose();
+			
+			} else if("restoreToPrevious".equals(this.previousDisposal)) {
+				
+				this.canvas.getRaster().setDataElements(this.previousArea.x, this.previousArea.y, this.previousArea.width, this.previousArea.height, this.backup);
+			}
+		}
+	}
+}
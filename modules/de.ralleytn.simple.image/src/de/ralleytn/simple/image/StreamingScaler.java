@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.Dimension;
+import java.io.IOException;
+
+import de.ralleytn.simple.image.internal.Streaming;
+
+/**
+ * Scales images that are too large to be held in the memory. The rows of the source image are pulled from a {@linkplain RowSource}
+ * and only the rows that are still needed by the scale algorithm are kept. Every target row is pushed to a {@linkplain RowSink} as soon as it is done.
+ * The results are exactly the same as the ones of {@link SimpleImage#scale(int, int, ScaleAlgorithm)} and {@link SimpleImage#scaleToFit(int, int)}.
+ * All built-in scale algorithms can be streamed; user defined ones can not.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public final class StreamingScaler {
+	
+	/*
+	 * @since 1.2.0
+	 */
+	private StreamingScaler() {}
+	
+	/**
+	 * Scales an image to the given size with {@link SimpleImage#SCALE_NEAREST_NEIGHBOUR}.
+	 * @param source the rows of the source image
+	 * @param sink receives the rows of the scaled image
+	 * @param width the width of the scaled image
+	 * @param height the height of the scaled image
+	 * @throws IOException if an error occurs during reading or writing
+	 * @throws IllegalArgumentException if width or height is smaller than 1
+	 * @since 1.2.0
+	 */
+	public static final void scale(RowSource source, RowSink sink, int width, int height) throws IOException, IllegalArgumentException {
+		
+		StreamingScaler.scale(source, sink, width, height, SimpleImage.SCALE_NEAREST_NEIGHBOUR);
+	}
+	
+	/**
+	 * Scales an image to the given size.
+	 * @param source the rows of the source image
+	 * @param sink receives the rows of the scaled image
+	 * @param width the width of the scaled image
+	 * @param height the height of the scaled image
+	 * @param algorithm one of the built-in scale algorithms
+	 * @throws IOException if an error occurs during reading or writing
+	 * @throws IllegalArgumentException if width or height is smaller than 1 or if the algorithm can not be streamed
+	 * @since 1.2.0
+	 */
+	public static final void scale(RowSource source, RowSink sink, int width, int height, ScaleAlgorithm algorithm) throws IOException, IllegalArgumentException {
+		
+		if(width < 1 || height < 1) {
+			
+			throw new IllegalArgumentException("An image must be at least 1x1px of size!");
+		}
+		
+		Streaming.Factory factory = Streaming.getFactory(algorithm);
+		
+		if(factory == null) {
+			
+			throw new IllegalArgumentException("The scale algorithm can not be streamed!");
+		}
+		
+		int srcWidth = source.getWidth();
+		int srcHeight = source.getHeight();
+		Streaming.Scaler scaler = factory.open(srcWidth, srcHeight, width, height, sink::write);
+		int[] row = new int[srcWidth];
+		sink.start(width, height);
+		
+		for(int y = 0; y < srcHeight; y++) {
+			
+			source.read(row);
+			scaler.add(row);
+		}
+	}
+	
+	/**
+	 * Scales an image proportional to fit the given size.
+	 * If the image shrinks by more than a factor of 2, {@link SimpleImage#SCALE_AREA_AVERAGING} is used, else {@link SimpleImage#SCALE_NEAREST_NEIGHBOUR}.
+	 * @param source the rows of the source image
+	 * @param sink receives the rows of the scaled image
+	 * @param width maximum width of the scaled image
+	 * @param height maximum height of the scaled image
+	 * @return the size of the scaled image
+	 * @throws IOException if an error occurs during reading or writing
+	 * @throws IllegalArgumentException if width or height is smaller than 1
+	 * @since 1.2.0
+	 */
+	public static final Dimension scaleToFit(RowSource source, RowSink sink, int width, int height) throws IOException, IllegalArgumentException {
+		
+		Dimension size = SimpleImage.fitSize(source.getWidth(), source.getHeight(), width, height);
+		boolean shrinksALot = source.getWidth() > size.width * 2L || source.getHeight() > size.height * 2L;
+		StreamingScaler.scale(source, sink, size.width, size.height, shrinksALot ? SimpleImage.SCALE_AREA_AVERAGING : SimpleImage.SCALE_NEAREST_NEIGHBOUR);
+		return size;
+	}
+	
+	/**
+	 * Scales an image proportional to fit the given size.
+	 * @param source the rows of the source image
+	 * @param sink receives the rows of the scaled image
+	 * @param width maximum width of the scaled image
+	 * @param height maximum height of the scaled image
+	 * @param algorithm one of the built-in scale algorithms
+	 * @return the size of the scaled image
+	 * @throws IOException if an error occurs during reading or writing
+	 * @throws IllegalArgumentException if width or height is smaller than 1 or if the algorithm can not be streamed
+	 * @since 1.2.0
+	 */
+	public static final Dimension scaleToFit(RowSource source, RowSink sink, int width, int height, ScaleAlgorithm algorithm) throws IOException, IllegalArgumentException {
+		
+		Dimension size = SimpleImage.fitSize(source.getWidth(), source.getHeight(), width, height);
+		StreamingScaler.scale(source, sink, size.width, size.height, algorithm);
+		return size;
+	}
+}
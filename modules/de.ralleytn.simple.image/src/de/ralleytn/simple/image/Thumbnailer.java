@@ -0,0 +1,370 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import de.ralleytn.simple.image.internal.Encoders;
+
+/**
+ * Creates thumbnails in a single pass. Instead of decoding the whole image, only every n-th pixel is decoded,
+ * so that the decoded image is just a few times larger than the thumbnail. It is decoded in strips of rows, that are
+ * averaged down to the thumbnail one after the other with a {@linkplain StreamingScaler}, optionally sharpened and encoded.
+ * A strip holds at most the oversampling squared times the pixels of the thumbnail, so the memory needed is proportional
+ * to the size of the thumbnail and not to the size of the source image. As the subsampling is a whole number, the decoded image
+ * can be up to four times as large as that. It is then decoded in more than one strip, for which most readers have to decode
+ * the image again from the start, which costs time but no memory.
+ * Images that are already smaller than the maximum size are not enlarged.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class Thumbnailer {
+	
+	private int maxWidth;
+	private int maxHeight;
+	private int oversampling;
+	private Filter sharpenFilter;
+	private String format;
+	private float compressionQuality;
+	
+	/**
+	 * @param maxWidth maximum width of the thumbnails
+	 * @param maxHeight maximum height of the thumbnails
+	 * @throws IllegalArgumentException if width or height is smaller than 1
+	 * @since 1.2.0
+	 */
+	public Thumbnailer(int maxWidth, int maxHeight) throws IllegalArgumentException {
+		
+		this.setMaxSize(maxWidth, maxHeight);
+		this.oversampling = 2;
+		this.format = "PNG";
+		this.compressionQuality = -1.0F;
+	}
+	
+	/**
+	 * Creates the thumbnail of an image file.
+	 * @param file the image file
+	 * @return the thumbnail
+	 * @throws IOException if an error occurs during reading or if the format is not supported
+	 * @since 1.2.0
+	 */
+	public SimpleImage create(Path file) throws IOException {
+		
+		try(ImageInputStream inputStream = ImageIO.createImageInputStream(file.toFile())) {
+			
+			return this.create(inputStream);
+		}
+	}
+	
+	/**
+	 * Creates the thumbnail of an image. The input stream is not closed.
+	 * @param inputStream input stream with the binary data of the image
+	 * @return the thumbnail
+	 * @throws IOException if an error occurs during reading or if the format is not supported
+	 * @since 1.2.0
+	 */
+	public SimpleImage create(InputStream inputStream) throws IOException {
+		
+		try(ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+			
+			return this.create(imageInputStream);
+		}
+	}
+	
+	/**
+	 * Creates the thumbnail of an image file and writes it into another file with the format of this thumbnailer.
+	 * @param input the image file
+	 * @param output the file the thumbnail should be written to
+	 * @throws IOException if an error occurs during reading or writing or if one of the formats is not supported
+	 * @since 1.2.0
+	 */
+	public void create(Path input, Path output) throws IOException {
+		
+		SimpleImage thumbnail = this.create(input);
+		
+		try(OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(output))) {
+			
+			this.write(thumbnail, outputStream);
+		}
+	}
+	
+	/**
+	 * Creates the thumbnail of an image and writes it on an output stream with the format of this thumbnailer.
+	 * Neither of the streams is closed.
+	 * @param inputStream input stream with the binary data of the image
+	 * @param outputStream output stream to write the thumbnail on
+	 * @throws IOException if an error occurs during reading or writing or if one of the formats is not supported
+	 * @since 1.2.0
+	 */
+	public void create(InputStream inputStream, OutputStream outputStream) throws IOException {
+		
+		this.write(this.create(inputStream), outputStream);
+	}
+	
+	private SimpleImage create(ImageInputStream inputStream) throws IOException {
+		
+		Iterator<ImageReader> readers = inputStream != null ? ImageIO.getImageReaders(inputStream) : Collections.emptyIterator();
+		
+		if(!readers.hasNext()) {
+			
+			throw new IOException("No reader found for the image!");
+		}
+		
+		ImageReader reader = readers.next();
+		
+		try {
+			
+			// Not forward only, as every strip is read from the start of the image
+			reader.setInput(inputStream, false, true);
+			int imgWidth = reader.getWidth(0);
+			int imgHeight = reader.getHeight(0);
+			Dimension size = SimpleImage.fitSize(imgWidth, imgHeight, this.maxWidth, this.maxHeight);
+			int width = Math.max(1, Math.min(size.width, imgWidth));
+			int height = Math.max(1, Math.min(size.height, imgHeight));
+			
+			// The reader skips all pixels that are not needed while decoding.
+			// Enough pixels are kept for the averaging to still have several samples per thumbnail pixel, which hides most of the aliasing.
+			int subsampling = Math.max(1, Math.min(imgWidth / (width * this.oversampling), imgHeight / (height * this.oversampling)));
+			int decodedWidth = (imgWidth + subsampling - 1) / subsampling;
+			int decodedHeight = (imgHeight + subsampling - 1) / subsampling;
+			
+			// Number of decoded rows in each strip, so that a strip never holds more than the oversampling squared times the pixels of the thumbnail
+			int stripRows = (int)Math.max(1L, Math.min(decodedHeight, (long)width * height * this.oversampling * this.oversampling / decodedWidth));
+			
+			ImageReadParam param = reader.getDefaultReadParam();
+			param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+			
+			int[][] data = new int[Math.min(width, decodedWidth)][Math.min(height, decodedHeight)];
+			
+			StreamingScaler.scale(new RowSource() {
+				
+				private BufferedImage strip;
+				private int stripY;
+				private int y;
+				
+				@Override
+				public int getWidth() {
+					
+					return decodedWidth;
+				}
+				
+				@Override
+				public int getHeight() {
+					
+					return decodedHeight;
+				}
+				
+				@Override
+				public void read(int[] row) throws IOException {
+					
+					if(this.strip == null || this.y == this.stripY + this.strip.getHeight()) {
+						
+						// The strips start on multiples of the subsampling, so they contain exactly the rows the whole image would
+						int srcY = this.y * subsampling;
+						param.setSourceRegion(new Rectangle(0, srcY, imgWidth, Math.min(imgHeight - srcY, stripRows * subsampling)));
+						
+						// Lets the previous strip be collected while the next one is decoded
+						this.strip = null;
+						this.strip = reader.read(0, param);
+						this.stripY = this.y;
+					}
+					
+					this.strip.getRGB(0, this.y++ - this.stripY, row.length, 1, row, 0, row.length);
+				}
+			
+			}, new RowSink() {
+				
+				private int y;
+				
+				@Override
+				public void write(int[] row) {
+					
+					for(int x = 0; x < row.length; x++) {
+						
+						data[x][this.y] = row[x];
+					}
+					
+					this.y++;
+				}
+			
+			}, data.length, data[0].length, SimpleImage.SCALE_AREA_AVERAGING);
+			
+			SimpleImage thumbnail = new SimpleImage(data);
+			return this.sharpenFilter != null ? thumbnail.filter(this.sharpenFilter) : thumbnail;
+		
+		} finally {
+			
+			reader.dispose();
+		}
+	}
+	
+	private void write(SimpleImage thumbnail, OutputStream outputStream) throws IOException {
+		
+		// JPEG writers do not accept an alpha channel
+		String format = this.format.toLowerCase(Locale.ROOT);
+		int type = format.equals("jpg") || format.equals("jpeg") ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+		
+		if(!Encoders.write(thumbnail.toBufferedImage(type), this.format, outputStream, this.compressionQuality)) {
+			
+			throw new IOException("No writer found for the format '" + this.format + "'!");
+		}
+	}
+	
+	/**
+	 * Sets the maximum size of the thumbnails. The thumbnails keep the aspect ratio of the source images.
+	 * @param maxWidth maximum width of the thumbnails
+	 * @param maxHeight maximum height of the thumbnails
+	 * @throws IllegalArgumentException if width or height is smaller than 1
+	 * @since 1.2.0
+	 */
+	public void setMaxSize(int maxWidth, int maxHeight) throws IllegalArgumentException {
+		
+		if(maxWidth < 1 || maxHeight < 1) {
+			
+			throw new IllegalArgumentException("A thumbnail must be at least 1x1px of size!");
+		}
+		
+		this.maxWidth = maxWidth;
+		this.maxHeight = maxHeight;
+	}
+	
+	/**
+	 * Sets how many decoded pixels there should be at least for each pixel of the thumbnail along each axis.
+	 * Higher values produce smoother thumbnails but need more memory and time. The default is 2.
+	 * @param oversampling the oversampling
+	 * @throws IllegalArgumentException if the oversampling is smaller than 1
+	 * @since 1.2.0
+	 */
+	public void setOversampling(int oversampling) throws IllegalArgumentException {
+		
+		if(oversampling < 1) {
+			
+			throw new IllegalArgumentException("The oversampling must be at least 1!");
+		}
+		
+		this.oversampling = oversampling;
+	}
+	
+	/**
+	 * Sets a filter that is applied on every thumbnail after it was scaled down, usually a {@linkplain SharpenFilter}.
+	 * @param sharpenFilter the filter or {@code null} to not filter the thumbnails
+	 * @since 1.2.0
+	 */
+	public void setSharpenFilter(Filter sharpenFilter) {
+		
+		this.sharpenFilter = sharpenFilter;
+	}
+	
+	/**
+	 * Sets the format in which the thumbnails are written. The default is PNG.
+	 * @param format the format
+	 * @since 1.2.0
+	 */
+	public void setFormat(String format) {
+		
+		this.format = format;
+	}
+	
+	/**
+	 * Sets the compression quality for formats that support it, like JPEG.
+	 * @param compressionQuality 0.0F = small file, 1.0F = high quality, a negative value uses the default of the writer
+	 * @since 1.2.0
+	 */
+	public void setCompressionQuality(float compressionQuality) {
+		
+		this.compressionQuality = compressionQuality;
+	}
+	
+	/**
+	 * @return the maximum width of the thumbnails
+	 * @since 1.2.0
+	 */
+	public int getMaxWidth() {
+		
+		return this.maxWidth;
+	}
+	
+	/**
+	 * @return the maximum height of the thumbnails
+	 * @since 1.2.0
+	 */
+	public int getMaxHeight() {
+		
+		return this.maxHeight;
+	}
+	
+	/**
+	 * @return how many decoded pixels there are at least for each pixel of the thumbnail along each axis
+	 * @since 1.2.0
+	 */
+	public int getOversampling() {
+		
+		return this.oversampling;
+	}
+	
+	/**
+	 * @return the filter that is applied on every thumbnail or {@code null}
+	 * @since 1.2.0
+	 */
+	public Filter getSharpenFilter() {
+		
+		return this.sharpenFilter;
+	}
+	
+	/**
+	 * @return the format in which the thumbnails are written
+	 * @since 1.2.0
+	 */
+	public String getFormat() {
+		
+		return this.format;
+	}
+	
+	/**
+	 * @return the compression quality, a negative value means the default of the writer
+	 * @since 1.2.0
+	 */
+	public float getCompressionQuality() {
+		
+		return this.compressionQuality;
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2017 Ralph Niemitz
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package de.ralleytn.simple.image;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+
+/**
+ * Combines scaling, rotating, mirroring and cropping into a single {@linkplain AffineTransform}, which is then applied with
+ * {@link SimpleImage#transform(TransformBuilder, Interpolation)} in one pass instead of creating an image for each operation.
+ * Every operation works on the positions exactly like the method of {@linkplain SimpleImage} with the same name, but the pixels are only sampled once at the end.
+ * The builder keeps track of the size the image would have after each operation.
+ * @author Ralph Niemitz/RalleYTN(ralph.niemitz@gmx.de)
+ * @version 1.2.0
+ * @since 1.2.0
+ */
+public class TransformBuilder {
+	
+	private final AffineTransform transform;
+	private int width;
+	private int height;
+	
+	/**
+	 * @param width width of the image the operations will be applied on
+	 * @param height height of the image the operations will be applied on
+	 * @throws IllegalArgumentException if the size is smaller than 1x1
+	 * @since 1.2.0
+	 */
+	public TransformBuilder(int width, int height) throws IllegalArgumentException {
+		
+		TransformBuilder.__checkSize(width, height);
+		this.transform = new AffineTransform();
+		this.width = width;
+		this.height = height;
+	}
+	
+	/**
+	 * @param image the image the operations will be applied on
+	 * @since 1.2.0
+	 */
+	public TransformBuilder(SimpleImage image) {
+		
+		this(image.getWidth(), image.getHeight());
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#scale(int, int)}.
+	 * @param width the new width
+	 * @param height the new height
+	 * @return this builder
+	 * @throws IllegalArgumentException if the size is smaller than 1x1
+	 * @since 1.2.0
+	 */
+	public TransformBuilder scale(int width, int height) throws IllegalArgumentException {
+		
+		TransformBuilder.__checkSize(width, height);
+		this.transform.preConcatenate(AffineTransform.getScaleInstance((double)width / this.width, (double)height / this.height));
+		this.width = width;
+		this.height = height;
+		
+		return this;
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#scaleByFactor(float)}.
+	 * @param factor factor by which the image should be scaled
+	 * @return this builder
+	 * @since 1.2.0
+	 */
+	public TransformBuilder scaleByFactor(float factor) {
+		
+		return this.scale(Math.max(1, (int)(this.width * factor)), Math.max(1, (int)(this.height * factor)));
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#rotate(double)}. The size stays the same.
+	 * @param degrees degrees by which the image should rotate
+	 * @return this builder
+	 * @since 1.2.0
+	 */
+	public TransformBuilder rotate(double degrees) {
+		
+		return this.rotate(degrees, this.width, this.height, this.width / 2, this.height / 2);
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#rotate(double, int, int, int, int)}.
+	 * @param degrees degrees by which the image should rotate
+	 * @param width width of the resulting image
+	 * @param height height of the resulting image
+	 * @param rotationCenterX X position of the rotation center
+	 * @param rotationCenterY Y position of the rotation center
+	 * @return this builder
+	 * @throws IllegalArgumentException if the size is smaller than 1x1
+	 * @since 1.2.0
+	 */
+	public TransformBuilder rotate(double degrees, int width, int height, int rotationCenterX, int rotationCenterY) throws IllegalArgumentException {
+		
+		TransformBuilder.__checkSize(width, height);
+		
+		// The rotation algorithms describe where each target pixel comes from, so that mapping is built first and then inverted
+		double radians = Math.toRadians(degrees);
+		double sin = Math.sin(radians);
+		double cos = Math.cos(radians);
+		double offsetX = rotationCenterY - rotationCenterY * sin - rotationCenterX * cos;
+		double offsetY = rotationCenterX - rotationCenterY * cos + rotationCenterY * sin;
+		
+		try {
+			
+			this.transform.preConcatenate(new AffineTransform(cos, -sin, sin, cos, offsetX, offsetY).createInverse());
+		
+		} catch(NoninvertibleTransformException exception) {
+			
+			// A rotation can always be inverted
+			throw new IllegalStateException(exception);
+		}
+		
+		this.width = width;
+		this.height = height;
+		
+		return this;
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#rotate90()}.
+	 * @return this builder
+	 * @since 1.2.0
+	 */
+	public TransformBuilder rotate90() {
+		
+		this.transform.preConcatenate(new AffineTransform(0, 1, -1, 0, this.height - 1, 0));
+		return this.__swapSize();
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#rotate180()}.
+	 * @return this builder
+	 * @since 1.2.0
+	 */
+	public TransformBuilder rotate180() {
+		
+		this.transform.preConcatenate(new AffineTransform(-1, 0, 0, -1, this.width - 1, this.height - 1));
+		return this;
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#rotate270()}.
+	 * @return this builder
+	 * @since 1.2.0
+	 */
+	public TransformBuilder rotate270() {
+		
+		this.transform.preConcatenate(new AffineTransform(0, -1, 1, 0, 0, this.width - 1));
+		return this.__swapSize();
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#mirror(int)}.
+	 * @param axis axis to mirror the image on
+	 * @return this builder
+	 * @since 1.2.0
+	 */
+	public TransformBuilder mirror(int axis) {
+		
+		if(axis == SimpleImage.AXIS_Y) {
+			
+			this.transform.preConcatenate(new AffineTransform(-1, 0, 0, 1, this.width - 1, 0));
+		
+		} else if(axis == SimpleImage.AXIS_X) {
+			
+			this.transform.preConcatenate(new AffineTransform(1, 0, 0, -1, 0, this.height - 1));
+		}
+		
+		return this;
+	}
+	
+	/**
+	 * Same as {@link SimpleImage#crop(int, int, int, int)}.
+	 * @param x X position of the part which should be cropped
+	 * @param y Y position of the part which should be cropped
+	 * @param width width of the part which should be cropped
+	 * @param height height of the part which should be cropped
+	 * @return this builder
+	 * @throws IllegalArgumentException if width or height are smaller than 1
+	 * @since 1.2.0
+	 */
+	public TransformBuilder crop(int x, int y, int width, int height) throws IllegalArgumentException {
+		
+		TransformBuilder.__checkSize(width, height);
+		this.transform.preConcatenate(AffineTransform.getTranslateInstance(-x, -y));
+		this.width = width;
+		this.height = height;
+		
+		return this;
+	}
+	
+	private TransformBuilder __swapSize() {
+		
+		int width = this.width;
+		this.width = this.height;
+		this.height = width;
+		
+		return this;
+	}
+	
+	private static final void __checkSize(int width, int height) {
+		
+		if(width < 1 || height < 1) {
+			
+			throw new IllegalArgumentException("An image must be at least 1x1px of size!");
+		}
+	}
+	
+	/**
+	 * @return a copy of the transform that maps positions on the original image to positions on the resulting image
+	 * @since 1.2.0
+	 */
+	public AffineTransform getTransform() {
+		
+		return new AffineTransform(this.transform);
+	}
+	
+	/**
+	 * @return the width of the resulting image
+	 * @since 1.2.0
+	 */
+	public int getWidth() {
+		
+		return this.width;
+	}
+	
+	/**
+	 * @return the height of the resulting image
+	 * @since 1.2.0
+	 */
+	public int getHeight() {
+		
+		return this.height;
+	}
+}
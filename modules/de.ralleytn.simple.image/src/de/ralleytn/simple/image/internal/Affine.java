@@ -0,0 +1,144 @@
+package de.ralleytn.simple.image.internal;
+
+import java.awt.geom.AffineTransform;
+
+public final class Affine {
+	
+	private Affine() {}
+	
+	// The inverse maps a target position to the source position, the flat matrix is {m00, m10, m01, m11, m02, m12} as in AffineTransform.getMatrix(double[])
+	public static final void transform(int[][] source, int[][] target, AffineTransform inverse, boolean bilinear, int parallelism) {
+		
+		int targetWidth = target.length;
+		int targetHeight = target[0].length;
+		double[] matrix = new double[6];
+		inverse.getMatrix(matrix);
+		
+		Parallel.run(targetWidth, (long)targetWidth * targetHeight, parallelism, (fromX, toX) -> {
+			
+			if(bilinear) {
+				
+				Affine.bilinear(source, target, matrix, fromX, toX);
+			
+			} else {
+				
+				Affine.nearest(source, target, matrix, fromX, toX);
+			}
+		});
+	}
+	
+	private static final void nearest(int[][] source, int[][] target, double[] matrix, int fromX, int toX) {
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int targetHeight = target[0].length;
+		
+		// Walking down a target column moves the source position by a constant step, so it is tracked as a 32.32 fixed point number.
+		// Only the span of each column that lands inside of the source is visited, the pixels around it stay transparent.
+		
+		long stepX = Math.round(matrix[2] * Rotations.FIXED_ONE);
+		long stepY = Math.round(matrix[3] * Rotations.FIXED_ONE);
+		long bias = Affine.bias(targetHeight);
+		
+		for(int targetX = fromX; targetX < toX; targetX++) {
+			
+			long startX = Math.round((matrix[0] * targetX + matrix[4]) * Rotations.FIXED_ONE) + bias;
+			long startY = Math.round((matrix[1] * targetX + matrix[5]) * Rotations.FIXED_ONE) + bias;
+			int[] targetColumn = target[targetX];
+			int[] span = Rotations.interiorSpan(startX, stepX, srcWidth, startY, stepY, srcHeight, targetHeight);
+			long srcX = startX + span[0] * stepX;
+			long srcY = startY + span[0] * stepY;
+			
+			// Columns that map onto a single source column, like after scaling, mirroring or cropping, are read without looking up the column again
+			if(stepX == 0 && span[0] < span[1]) {
+				
+				int[] srcColumn = source[(int)(srcX >> 32)];
+				
+				for(int targetY = span[0]; targetY < span[1]; targetY++) {
+					
+					targetColumn[targetY] = srcColumn[(int)(srcY >> 32)];
+					srcY += stepY;
+				}
+			
+			} else {
+				
+				for(int targetY = span[0]; targetY < span[1]; targetY++) {
+					
+					targetColumn[targetY] = source[(int)(srcX >> 32)][(int)(srcY >> 32)];
+					srcX += stepX;
+					srcY += stepY;
+				}
+			}
+		}
+	}
+	
+	private static final void bilinear(int[][] source, int[][] target, double[] matrix, int fromX, int toX) {
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int targetHeight = target[0].length;
+		long stepX = Math.round(matrix[2] * Rotations.FIXED_ONE);
+		long stepY = Math.round(matrix[3] * Rotations.FIXED_ONE);
+		long bias = Affine.bias(targetHeight);
+		
+		for(int targetX = fromX; targetX < toX; targetX++) {
+			
+			long startX = Math.round((matrix[0] * targetX + matrix[4]) * Rotations.FIXED_ONE) + bias;
+			long startY = Math.round((matrix[1] * targetX + matrix[5]) * Rotations.FIXED_ONE) + bias;
+			int[] targetColumn = target[targetX];
+			
+			// Only pixels whose four neighbours are all inside of the source take the fast path without any bounds checks
+			int[] interior = Rotations.interiorSpan(startX, stepX, srcWidth - 1, startY, stepY, srcHeight - 1, targetHeight);
+			
+			for(int targetY = 0; targetY < interior[0]; targetY++) {
+				
+				Affine.interpolateAtEdge(source, targetColumn, targetY, startX + targetY * stepX, startY + targetY * stepY);
+			}
+			
+			long srcX = startX + interior[0] * stepX;
+			long srcY = startY + interior[0] * stepY;
+			
+			for(int targetY = interior[0]; targetY < interior[1]; targetY++) {
+				
+				int x1 = (int)(srcX >> 32);
+				int y1 = (int)(srcY >> 32);
+				int[] column1 = source[x1];
+				int[] column2 = source[x1 + 1];
+				
+				targetColumn[targetY] = Utils.interpolateBilinear(column1[y1], column2[y1], column1[y1 + 1], column2[y1 + 1], (int)(srcX >>> 24) & 0xFF, (int)(srcY >>> 24) & 0xFF);
+				srcX += stepX;
+				srcY += stepY;
+			}
+			
+			for(int targetY = interior[1]; targetY < targetHeight; targetY++) {
+				
+				Affine.interpolateAtEdge(source, targetColumn, targetY, startX + targetY * stepX, startY + targetY * stepY);
+			}
+		}
+	}
+	
+	private static final void interpolateAtEdge(int[][] source, int[] targetColumn, int targetY, long srcX, long srcY) {
+		
+		// Neighbours outside of the source are replaced by the nearest pixel on the same row or column, just like SimpleImage.SCALE_BILINEAR_INTERPOLATION does
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int x1 = (int)(srcX >> 32);
+		int y1 = (int)(srcY >> 32);
+		
+		if(srcX >= 0 && srcY >= 0 && x1 < srcWidth && y1 < srcHeight) {
+			
+			int[] column1 = source[x1];
+			int[] column2 = source[Math.min(x1 + 1, srcWidth - 1)];
+			int y2 = Math.min(y1 + 1, srcHeight - 1);
+			
+			targetColumn[targetY] = Utils.interpolateBilinear(column1[y1], column2[y1], column1[y2], column2[y2], (int)(srcX >>> 24) & 0xFF, (int)(srcY >>> 24) & 0xFF);
+		}
+	}
+	
+	private static final long bias(int length) {
+		
+		// Each step can be off by half a unit of the fixed point number. Starting above the exact position by the largest possible error
+		// keeps positions that should land exactly on a pixel, like the ones of a scale by 1/3, from ending up one unit short of it.
+		return length / 2 + 1;
+	}
+}
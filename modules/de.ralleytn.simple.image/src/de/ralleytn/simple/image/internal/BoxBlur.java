@@ -0,0 +1,206 @@
+package de.ralleytn.simple.image.internal;
+
+import java.awt.Rectangle;
+
+import de.ralleytn.simple.image.ConvolutionFilter;
+
+public final class BoxBlur {
+	
+	private BoxBlur() {}
+	
+	// Blurs the image once for each radius. Like every convolution, the alpha channel and the pixels outside of the bounds are kept.
+	public static final void blur(int[][] source, int[][] target, int[] radii, int edgeCondition, Rectangle bounds, int parallelism) {
+		
+		int width = source.length;
+		int height = source[0].length;
+		int fromX = Math.max(0, bounds.x);
+		int toX = Math.min(width, bounds.x + bounds.width);
+		int fromY = Math.max(0, bounds.y);
+		int toY = Math.min(height, bounds.y + bounds.height);
+		
+		for(int x = 0; x < width; x++) {
+			
+			System.arraycopy(source[x], 0, target[x], 0, height);
+		}
+		
+		if(fromX >= toX || fromY >= toY) {
+			
+			return;
+		}
+		
+		// Holds the result of the vertical pass. The horizontal pass reads each pixel of it only for the pixel on the same position,
+		// so the passes can work directly on the target.
+		int[][] columns = null;
+		
+		for(int radius : radii) {
+			
+			if(radius > 0) {
+				
+				if(columns == null) {
+					
+					columns = new int[width][height];
+				}
+				
+				BoxBlur.pass(target, columns, radius, edgeCondition, fromX, toX, fromY, toY, parallelism);
+			}
+		}
+	}
+	
+	private static final void pass(int[][] image, int[][] columns, int radius, int edgeCondition, int fromX, int toX, int fromY, int toY, int parallelism) {
+		
+		int width = image.length;
+		int height = image[0].length;
+		int size = radius * 2 + 1;
+		long multiplier = BoxBlur.multiplier(size);
+		
+		// Columns that the horizontal pass reads; with EDGE_REPEAT these can be on the other side of the image
+		int firstColumn = edgeCondition == ConvolutionFilter.EDGE_REPEAT ? 0 : Math.max(0, fromX - radius);
+		int lastColumn = edgeCondition == ConvolutionFilter.EDGE_REPEAT ? width : Math.min(width, toX + radius);
+		
+		Parallel.run(lastColumn - firstColumn, (long)(lastColumn - firstColumn) * (toY - fromY), parallelism, (from, to) -> {
+			
+			for(int x = firstColumn + from; x < firstColumn + to; x++) {
+				
+				BoxBlur.vertical(image[x], columns[x], radius, multiplier, edgeCondition, fromY, toY);
+			}
+		});
+		
+		// The horizontal pass is split into bands of rows instead of columns, so the sums only have to be started once per band
+		Parallel.run(toY - fromY, (long)(toX - fromX) * (toY - fromY), parallelism, (from, to) -> {
+			
+			BoxBlur.horizontal(image, columns, radius, multiplier, edgeCondition, fromX, toX, fromY + from, fromY + to);
+		});
+	}
+	
+	private static final void vertical(int[] column, int[] result, int radius, long multiplier, int edgeCondition, int fromY, int toY) {
+		
+		int height = column.length;
+		int red = 0;
+		int green = 0;
+		int blue = 0;
+		
+		for(int y = fromY - radius; y <= fromY + radius; y++) {
+			
+			int srcY = Utils.edge(y, height, edgeCondition);
+			
+			if(srcY >= 0) {
+				
+				int pixel = column[srcY];
+				red += (pixel >> 16) & 0xFF;
+				green += (pixel >> 8) & 0xFF;
+				blue += pixel & 0xFF;
+			}
+		}
+		
+		// The window slides down by one pixel each step, the pixel that enters it is added and the one that leaves it is subtracted
+		for(int y = fromY; y < toY; y++) {
+			
+			result[y] = BoxBlur.average(red, green, blue, multiplier);
+			
+			int added = Utils.edge(y + radius + 1, height, edgeCondition);
+			int removed = Utils.edge(y - radius, height, edgeCondition);
+			
+			if(added >= 0) {
+				
+				int pixel = column[added];
+				red += (pixel >> 16) & 0xFF;
+				green += (pixel >> 8) & 0xFF;
+				blue += pixel & 0xFF;
+			}
+			
+			if(removed >= 0) {
+				
+				int pixel = column[removed];
+				red -= (pixel >> 16) & 0xFF;
+				green -= (pixel >> 8) & 0xFF;
+				blue -= pixel & 0xFF;
+			}
+		}
+	}
+	
+	private static final void horizontal(int[][] image, int[][] columns, int radius, long multiplier, int edgeCondition, int fromX, int toX, int fromY, int toY) {
+		
+		int width = image.length;
+		int height = image[0].length;
+		int rows = toY - fromY;
+		int[] reds = new int[rows];
+		int[] greens = new int[rows];
+		int[] blues = new int[rows];
+		boolean wholeWindow = edgeCondition == ConvolutionFilter.EDGE_ZERO_FILL || edgeCondition == ConvolutionFilter.EDGE_FROM_SOURCE;
+		int innerFromY = wholeWindow ? Math.max(fromY, radius) : fromY;
+		int innerToY = wholeWindow ? Math.min(toY, height - radius) : toY;
+		
+		for(int x = fromX - radius; x <= fromX + radius; x++) {
+			
+			BoxBlur.add(columns, Utils.edge(x, width, edgeCondition), reds, greens, blues, fromY, toY, 1);
+		}
+		
+		for(int x = fromX; x < toX; x++) {
+			
+			int[] column = image[x];
+			
+			// With EDGE_ZERO_FILL and EDGE_FROM_SOURCE, pixels whose window does not fit into the image are not blurred
+			if(wholeWindow && (x - radius < 0 || x + radius >= width)) {
+				
+				BoxBlur.skip(column, edgeCondition, fromY, toY);
+			
+			} else {
+				
+				BoxBlur.skip(column, edgeCondition, fromY, Math.min(toY, innerFromY));
+				
+				for(int y = innerFromY; y < innerToY; y++) {
+					
+					int index = y - fromY;
+					column[y] = (column[y] & 0xFF000000) | BoxBlur.average(reds[index], greens[index], blues[index], multiplier);
+				}
+				
+				BoxBlur.skip(column, edgeCondition, Math.max(fromY, innerToY), toY);
+			}
+			
+			BoxBlur.add(columns, Utils.edge(x + radius + 1, width, edgeCondition), reds, greens, blues, fromY, toY, 1);
+			BoxBlur.add(columns, Utils.edge(x - radius, width, edgeCondition), reds, greens, blues, fromY, toY, -1);
+		}
+	}
+	
+	private static final void add(int[][] columns, int srcX, int[] reds, int[] greens, int[] blues, int fromY, int toY, int sign) {
+		
+		if(srcX >= 0) {
+			
+			int[] column = columns[srcX];
+			
+			for(int y = fromY; y < toY; y++) {
+				
+				int pixel = column[y];
+				int index = y - fromY;
+				reds[index] += ((pixel >> 16) & 0xFF) * sign;
+				greens[index] += ((pixel >> 8) & 0xFF) * sign;
+				blues[index] += (pixel & 0xFF) * sign;
+			}
+		}
+	}
+	
+	private static final void skip(int[] column, int edgeCondition, int fromY, int toY) {
+		
+		if(edgeCondition == ConvolutionFilter.EDGE_ZERO_FILL) {
+			
+			for(int y = fromY; y < toY; y++) {
+				
+				column[y] &= 0xFF000000;
+			}
+		}
+	}
+	
+	private static final long multiplier(int size) {
+		
+		// Dividing by the size of the window is done as a multiplication with its reciprocal as 32.32 fixed point number.
+		// The error of the reciprocal is far too small to change the rounded result of a sum of at most 255 * size.
+		return ((1L << 32) + size / 2) / size;
+	}
+	
+	private static final int average(int red, int green, int blue, long multiplier) {
+		
+		long half = 1L << 31;
+		
+		return (int)((red * multiplier + half) >>> 32) << 16 | (int)((green * multiplier + half) >>> 32) << 8 | (int)((blue * multiplier + half) >>> 32);
+	}
+}
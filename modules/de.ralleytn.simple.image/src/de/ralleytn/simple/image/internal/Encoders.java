@@ -0,0 +1,149 @@
+package de.ralleytn.simple.image.internal;
+
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+public final class Encoders {
+	
+	// Looking up a writer goes through the service registry and some writers (JPEG) allocate native state.
+	// Writers are therefore reset and kept in a pool that is shared by all threads, so they outlive short lived threads like the ones of a BatchProcessor.
+	// The pool is bounded, the writer that was not used for the longest time is disposed when it is full.
+	private static final int MAX_IDLE = Math.max(8, Parallel.DEFAULT_PARALLELISM * 2);
+	private static final Deque<Encoder> IDLE = new ArrayDeque<>();
+	
+	private Encoders() {}
+	
+	public static final boolean write(RenderedImage image, String format, OutputStream outputStream) throws IOException {
+		
+		return Encoders.write(image, format, outputStream, -1.0F);
+	}
+	
+	public static final boolean write(RenderedImage image, String format, OutputStream outputStream, float compressionQuality) throws IOException {
+		
+		ImageTypeSpecifier type = ImageTypeSpecifier.createFromRenderedImage(image);
+		String name = format.toLowerCase(Locale.ROOT);
+		Encoder encoder = Encoders.acquire(name, type);
+		
+		if(encoder == null) {
+			
+			Iterator<ImageWriter> writers = ImageIO.getImageWriters(type, format);
+			
+			if(!writers.hasNext()) {
+				
+				return false;
+			}
+			
+			encoder = new Encoder(name, type, writers.next());
+		}
+		
+		ImageWriteParam param = null;
+		
+		if(compressionQuality >= 0.0F && encoder.param.canWriteCompressed()) {
+			
+			param = encoder.param;
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			
+			if(param.getCompressionType() == null) {
+				
+				param.setCompressionType(param.getCompressionTypes()[0]);
+			}
+			
+			param.setCompressionQuality(compressionQuality);
+		}
+		
+		boolean reusable = false;
+		
+		try(ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+			
+			encoder.writer.setOutput(imageOutputStream);
+			encoder.writer.write(null, new IIOImage(image, null, null), param);
+			imageOutputStream.flush();
+			reusable = true;
+		
+		} finally {
+			
+			if(reusable) {
+				
+				encoder.writer.reset();
+				Encoders.release(encoder);
+			
+			} else {
+				
+				// The writer might be in an undefined state after an error, so it is not used again
+				encoder.writer.dispose();
+			}
+		}
+		
+		return true;
+	}
+	
+	private static final Encoder acquire(String format, ImageTypeSpecifier type) {
+		
+		// The type is compared with equals, which looks at the color and sample model, so images of TYPE_CUSTOM only share writers if they really are alike
+		synchronized(Encoders.IDLE) {
+			
+			Iterator<Encoder> iterator = Encoders.IDLE.iterator();
+			
+			while(iterator.hasNext()) {
+				
+				Encoder encoder = iterator.next();
+				
+				if(encoder.format.equals(format) && encoder.type.equals(type)) {
+					
+					iterator.remove();
+					return encoder;
+				}
+			}
+		}
+		
+		return null;
+	}
+	
+	private static final void release(Encoder encoder) {
+		
+		Encoder evicted = null;
+		
+		synchronized(Encoders.IDLE) {
+			
+			Encoders.IDLE.addFirst(encoder);
+			
+			if(Encoders.IDLE.size() > Encoders.MAX_IDLE) {
+				
+				evicted = Encoders.IDLE.removeLast();
+			}
+		}
+		
+		if(evicted != null) {
+			
+			evicted.writer.dispose();
+		}
+	}
+	
+	private static final class Encoder {
+		
+		private final String format;
+		private final ImageTypeSpecifier type;
+		private final ImageWriter writer;
+		private final ImageWriteParam param;
+		
+		private Encoder(String format, ImageTypeSpecifier type, ImageWriter writer) {
+			
+			this.format = format;
+			this.type = type;
+			this.writer = writer;
+			this.param = writer.getDefaultWriteParam();
+		}
+	}
+}
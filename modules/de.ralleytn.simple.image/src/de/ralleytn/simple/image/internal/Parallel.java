@@ -0,0 +1,94 @@
+package de.ralleytn.simple.image.internal;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+public final class Parallel {
+	
+	// Below this number of pixels, splitting the work costs more time than it saves
+	public static final long THRESHOLD = 1L << 16;
+	public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+	
+	private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+	
+	private Parallel() {}
+	
+	public static final void run(int size, long pixels, int parallelism, Range range) {
+		
+		// More threads than processors only add overhead. This also means that there is at most one pool per processor count.
+		int threads = Math.min(parallelism, Parallel.DEFAULT_PARALLELISM);
+		
+		if(threads <= 1 || size < 2 || pixels < Parallel.THRESHOLD) {
+			
+			range.run(0, size);
+			return;
+		}
+		
+		// There are more bands than threads, so that threads that finish early can take over the remaining bands
+		int bands = Math.min(size, threads * 4);
+		Band band = new Band(range, 0, size, (size + bands - 1) / bands);
+		
+		// Inside of a pool, for example in a BatchProcessor, the bands are run by that pool instead of starting more threads
+		if(Thread.currentThread() instanceof ForkJoinWorkerThread) {
+			
+			band.invoke();
+		
+		} else {
+			
+			// The pools are kept for the next call. Their daemon threads end themselves after a while without work, so an unused pool holds no threads.
+			Parallel.POOLS.computeIfAbsent(threads, ForkJoinPool::new).invoke(band);
+		}
+	}
+	
+	public static final int checkParallelism(int parallelism) {
+		
+		if(parallelism < 1) {
+			
+			throw new IllegalArgumentException("The parallelism must be at least 1!");
+		}
+		
+		return parallelism;
+	}
+	
+	@FunctionalInterface
+	public static interface Range {
+		
+		public void run(int from, int to);
+	}
+	
+	private static final class Band extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final transient Range range;
+		private final int from;
+		private final int to;
+		private final int size;
+		
+		private Band(Range range, int from, int to, int size) {
+			
+			this.range = range;
+			this.from = from;
+			this.to = to;
+			this.size = size;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			if(this.to - this.from <= this.size) {
+				
+				this.range.run(this.from, this.to);
+			
+			} else {
+				
+				int middle = (this.from + this.to) >>> 1;
+				ForkJoinTask.invokeAll(new Band(this.range, this.from, middle, this.size), new Band(this.range, middle, this.to, this.size));
+			}
+		}
+	}
+}
@@ -0,0 +1,557 @@
+package de.ralleytn.simple.image.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import de.ralleytn.simple.image.RawFormat;
+
+public final class RawCodec {
+	
+	// Rows are moved in chunks of about this size so that the buffer stays small but every system call transfers a lot of data
+	private static final int CHUNK_SIZE = 1 << 20;
+	private static final int MAX_HEADER_SIZE = 4096;
+	
+	// The sizes in the headers are unsigned 16 bit numbers for TGA and unsigned 32 bit numbers for BMP
+	private static final int MAX_TGA_SIZE = 0xFFFF;
+	private static final long MAX_BMP_FILE_SIZE = 0xFFFFFFFFL;
+	private static final int BMP_HEADER_SIZE = 14 + 108;
+	
+	private RawCodec() {}
+	
+	public static final void write(int[][] data, Path file, RawFormat format) throws IOException {
+		
+		int width = data.length;
+		int height = data[0].length;
+		
+		// Checked before the file is opened, so that an existing file is not truncated for nothing
+		if(format == RawFormat.TGA && (width > RawCodec.MAX_TGA_SIZE || height > RawCodec.MAX_TGA_SIZE)) {
+			
+			throw new IOException("TGA files can not be larger than " + RawCodec.MAX_TGA_SIZE + "x" + RawCodec.MAX_TGA_SIZE + "px!");
+		}
+		
+		if(format == RawFormat.BMP && RawCodec.BMP_HEADER_SIZE + (long)width * height * 4 > RawCodec.MAX_BMP_FILE_SIZE) {
+			
+			throw new IOException("BMP files can not be larger than 4 GiB!");
+		}
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			
+			switch(format) {
+				
+				case PPM:
+					RawCodec.__writeFully(channel, RawCodec.__ascii("P6\n" + width + " " + height + "\n255\n"));
+					RawCodec.__writeRows(channel, data, width * 3, ByteOrder.BIG_ENDIAN, (buffer, y) -> {
+						
+						for(int x = 0; x < width; x++) {
+							
+							int pixel = data[x][y];
+							buffer.put((byte)(pixel >> 16));
+							buffer.put((byte)(pixel >> 8));
+							buffer.put((byte)pixel);
+						}
+					});
+					break;
+				
+				case PGM:
+					RawCodec.__writeFully(channel, RawCodec.__ascii("P5\n" + width + " " + height + "\n255\n"));
+					RawCodec.__writeRows(channel, data, width, ByteOrder.BIG_ENDIAN, (buffer, y) -> {
+						
+						for(int x = 0; x < width; x++) {
+							
+							// Same ratios as the LuminosityGrayscaleFilter, scaled to 256
+							int pixel = data[x][y];
+							buffer.put((byte)((((pixel >> 16) & 0xFF) * 54 + ((pixel >> 8) & 0xFF) * 184 + (pixel & 0xFF) * 18) >> 8));
+						}
+					});
+					break;
+				
+				case PAM:
+					RawCodec.__writeFully(channel, RawCodec.__ascii("P7\nWIDTH " + width + "\nHEIGHT " + height + "\nDEPTH 4\nMAXVAL 255\nTUPLTYPE RGB_ALPHA\nENDHDR\n"));
+					RawCodec.__writeRows(channel, data, width * 4, ByteOrder.BIG_ENDIAN, (buffer, y) -> {
+						
+						for(int x = 0; x < width; x++) {
+							
+							int pixel = data[x][y];
+							buffer.putInt((pixel << 8) | (pixel >>> 24));
+						}
+					});
+					break;
+				
+				case BMP:
+					RawCodec.__writeFully(channel, RawCodec.__bmpHeader(width, height));
+					RawCodec.__writeRows(channel, data, width * 4, ByteOrder.LITTLE_ENDIAN, RawCodec.__argbRows(data));
+					break;
+				
+				case TGA:
+					RawCodec.__writeFully(channel, RawCodec.__tgaHeader(width, height));
+					RawCodec.__writeRows(channel, data, width * 4, ByteOrder.LITTLE_ENDIAN, RawCodec.__argbRows(data));
+					break;
+			}
+		}
+	}
+	
+	public static final int[][] read(Path file, RawFormat format) throws IOException {
+		
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			
+			ByteBuffer header = ByteBuffer.allocate((int)Math.min(RawCodec.MAX_HEADER_SIZE, channel.size()));
+			
+			while(header.hasRemaining() && channel.read(header) >= 0);
+			
+			header.flip();
+			
+			switch(format) {
+				
+				case PPM:
+				case PGM:
+				case PAM:
+					return RawCodec.__readNetpbm(channel, header, format);
+				
+				case BMP:
+					return RawCodec.__readBmp(channel, header.order(ByteOrder.LITTLE_ENDIAN));
+				
+				case TGA:
+					return RawCodec.__readTga(channel, header.order(ByteOrder.LITTLE_ENDIAN));
+				
+				default:
+					throw new IOException("Unsupported format " + format + "!");
+			}
+		}
+	}
+	
+	private static final RowEncoder __argbRows(int[][] data) {
+		
+		// In little endian byte order an ARGB int is stored as BGRA, which is exactly what BMP and TGA expect
+		return (buffer, y) -> {
+			
+			for(int x = 0; x < data.length; x++) {
+				
+				buffer.putInt(data[x][y]);
+			}
+		};
+	}
+	
+	private static final ByteBuffer __bmpHeader(int width, int height) {
+		
+		// Sizes between 2 and 4 GiB do not fit into an int, but keep the right bits for the unsigned fields
+		long dataSize = (long)width * height * 4;
+		ByteBuffer header = ByteBuffer.allocate(RawCodec.BMP_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		
+		// BITMAPFILEHEADER
+		header.put((byte)'B').put((byte)'M');
+		header.putInt((int)(RawCodec.BMP_HEADER_SIZE + dataSize));
+		header.putInt(0);
+		header.putInt(RawCodec.BMP_HEADER_SIZE);
+		
+		// BITMAPV4HEADER with bit fields, so that the alpha channel is not lost.
+		// The negative height marks the rows as top-down which lets them be written in the same order as they are stored.
+		header.putInt(108);
+		header.putInt(width);
+		header.putInt(-height);
+		header.putShort((short)1);
+		header.putShort((short)32);
+		header.putInt(3);
+		header.putInt((int)dataSize);
+		header.putInt(2835);
+		header.putInt(2835);
+		header.putInt(0);
+		header.putInt(0);
+		header.putInt(0x00FF0000);
+		header.putInt(0x0000FF00);
+		header.putInt(0x000000FF);
+		header.putInt(0xFF000000);
+		header.putInt(0x73524742);
+		header.position(header.limit());
+		header.flip();
+		return header;
+	}
+	
+	private static final ByteBuffer __tgaHeader(int width, int height) {
+		
+		ByteBuffer header = ByteBuffer.allocate(18).order(ByteOrder.LITTLE_ENDIAN);
+		header.put((byte)0);
+		header.put((byte)0);
+		header.put((byte)2);
+		header.put(new byte[5]);
+		header.putShort((short)0);
+		header.putShort((short)0);
+		header.putShort((short)width);
+		header.putShort((short)height);
+		header.put((byte)32);
+		
+		// 8 alpha bits, origin in the upper left corner
+		header.put((byte)0x28);
+		header.flip();
+		return header;
+	}
+	
+	private static final int[][] __readNetpbm(FileChannel channel, ByteBuffer header, RawFormat format) throws IOException {
+		
+		String magic = format == RawFormat.PPM ? "P6" : format == RawFormat.PGM ? "P5" : "P7";
+		
+		if(!magic.equals(RawCodec.__token(header))) {
+			
+			throw new IOException("The file is not a " + format + " file!");
+		}
+		
+		int width;
+		int height;
+		int depth;
+		int maxValue;
+		
+		if(format == RawFormat.PAM) {
+			
+			width = -1;
+			height = -1;
+			depth = -1;
+			maxValue = -1;
+			String key;
+			
+			while(!"ENDHDR".equals(key = RawCodec.__token(header))) {
+				
+				if("TUPLTYPE".equals(key)) {
+					
+					RawCodec.__token(header);
+				
+				} else {
+					
+					int value = RawCodec.__number(header);
+					
+					switch(key) {
+						
+						case "WIDTH": width = value; break;
+						case "HEIGHT": height = value; break;
+						case "DEPTH": depth = value; break;
+						case "MAXVAL": maxValue = value; break;
+						default: throw new IOException("Unknown header field " + key + "!");
+					}
+				}
+			}
+			
+			if(depth < 1 || depth > 4) {
+				
+				throw new IOException("Unsupported depth " + depth + "!");
+			}
+		
+		} else {
+			
+			width = RawCodec.__number(header);
+			height = RawCodec.__number(header);
+			depth = format == RawFormat.PPM ? 3 : 1;
+			maxValue = RawCodec.__number(header);
+		}
+		
+		// Exactly one whitespace character separates the header from the pixel data
+		header.get();
+		
+		if(maxValue < 1 || maxValue > 65535) {
+			
+			throw new IOException("Invalid maximum value " + maxValue + "!");
+		}
+		
+		int sampleSize = maxValue > 255 ? 2 : 1;
+		int channels = depth;
+		int maximum = maxValue;
+		int[][] data = RawCodec.__allocate(channel, header.position(), width, height, (long)width * depth * sampleSize);
+		int imgWidth = width;
+		
+		RawCodec.__readRows(channel, header.position(), data, width * depth * sampleSize, false, ByteOrder.BIG_ENDIAN, (buffer, y) -> {
+			
+			int[] samples = new int[4];
+			
+			for(int x = 0; x < imgWidth; x++) {
+				
+				for(int index = 0; index < channels; index++) {
+					
+					int sample = sampleSize == 2 ? buffer.getShort() & 0xFFFF : buffer.get() & 0xFF;
+					samples[index] = maximum == 255 ? sample : (sample * 255 + maximum / 2) / maximum;
+				}
+				
+				switch(channels) {
+					
+					case 1: data[x][y] = 0xFF000000 | (samples[0] << 16) | (samples[0] << 8) | samples[0]; break;
+					case 2: data[x][y] = (samples[1] << 24) | (samples[0] << 16) | (samples[0] << 8) | samples[0]; break;
+					case 3: data[x][y] = 0xFF000000 | (samples[0] << 16) | (samples[1] << 8) | samples[2]; break;
+					default: data[x][y] = (samples[3] << 24) | (samples[0] << 16) | (samples[1] << 8) | samples[2]; break;
+				}
+			}
+		});
+		
+		return data;
+	}
+	
+	private static final int[][] __readBmp(FileChannel channel, ByteBuffer header) throws IOException {
+		
+		if(header.remaining() < 54 || header.get(0) != 'B' || header.get(1) != 'M') {
+			
+			throw new IOException("The file is not a BMP file!");
+		}
+		
+		long offset = header.getInt(10) & 0xFFFFFFFFL;
+		int headerSize = header.getInt(14);
+		int width = header.getInt(18);
+		int rawHeight = header.getInt(22);
+		int bitsPerPixel = header.getShort(28);
+		int compression = header.getInt(30);
+		int height = Math.abs(rawHeight);
+		int[] masks = {0x00FF0000, 0x0000FF00, 0x000000FF, 0};
+		
+		if(bitsPerPixel == 32 && compression == 3) {
+			
+			boolean hasAlphaMask = headerSize >= 56;
+			
+			if(header.remaining() < (hasAlphaMask ? 70 : 66)) {
+				
+				throw new IOException("The BMP header is too short for its color masks!");
+			}
+			
+			// The masks either belong to the info header (V2 and later) or directly follow the 40 bytes long BITMAPINFOHEADER
+			masks[0] = header.getInt(54);
+			masks[1] = header.getInt(58);
+			masks[2] = header.getInt(62);
+			masks[3] = hasAlphaMask ? header.getInt(66) : 0;
+		
+		} else if(compression != 0 || (bitsPerPixel != 24 && bitsPerPixel != 32)) {
+			
+			throw new IOException("Only uncompressed BMP files with 24 or 32 bits per pixel are supported!");
+		}
+		
+		int[] shifts = new int[4];
+		
+		for(int index = 0; index < 4; index++) {
+			
+			shifts[index] = Integer.numberOfTrailingZeros(masks[index]);
+			
+			if(masks[index] != 0 && masks[index] >>> shifts[index] != 0xFF) {
+				
+				throw new IOException("Only 8 bits per color channel are supported!");
+			}
+		}
+		
+		int bytesPerPixel = bitsPerPixel / 8;
+		
+		// Computed as long, so that a corrupt width can not make the stride smaller than a row
+		long rowSize = ((long)width * bitsPerPixel + 31) / 32 * 4;
+		int[][] data = RawCodec.__allocate(channel, offset, width, height, rowSize);
+		int stride = (int)rowSize;
+		
+		RawCodec.__readRows(channel, offset, data, stride, rawHeight > 0, ByteOrder.LITTLE_ENDIAN, (buffer, y) -> {
+			
+			int start = buffer.position();
+			
+			for(int x = 0; x < width; x++) {
+				
+				if(bytesPerPixel == 3) {
+					
+					data[x][y] = 0xFF000000 | (buffer.get() & 0xFF) | ((buffer.get() & 0xFF) << 8) | ((buffer.get() & 0xFF) << 16);
+				
+				} else {
+					
+					int pixel = buffer.getInt();
+					int alpha = masks[3] != 0 ? (pixel & masks[3]) >>> shifts[3] : 0xFF;
+					data[x][y] = (alpha << 24) | (((pixel & masks[0]) >>> shifts[0]) << 16) | (((pixel & masks[1]) >>> shifts[1]) << 8) | ((pixel & masks[2]) >>> shifts[2]);
+				}
+			}
+			
+			buffer.position(start + stride);
+		});
+		
+		return data;
+	}
+	
+	private static final int[][] __readTga(FileChannel channel, ByteBuffer header) throws IOException {
+		
+		if(header.remaining() < 18) {
+			
+			throw new IOException("The file is not a TGA file!");
+		}
+		
+		int idLength = header.get(0) & 0xFF;
+		int colorMapType = header.get(1);
+		int imageType = header.get(2);
+		int width = header.getShort(12) & 0xFFFF;
+		int height = header.getShort(14) & 0xFFFF;
+		int bitsPerPixel = header.get(16) & 0xFF;
+		int descriptor = header.get(17);
+		boolean hasAlpha = (descriptor & 0x0F) != 0;
+		boolean rightToLeft = (descriptor & 0x10) != 0;
+		
+		if(colorMapType != 0 || !((imageType == 2 && (bitsPerPixel == 24 || bitsPerPixel == 32)) || (imageType == 3 && bitsPerPixel == 8))) {
+			
+			throw new IOException("Only uncompressed true color and grayscale TGA files are supported!");
+		}
+		
+		int bytesPerPixel = bitsPerPixel / 8;
+		int[][] data = RawCodec.__allocate(channel, 18 + idLength, width, height, (long)width * bytesPerPixel);
+		
+		RawCodec.__readRows(channel, 18 + idLength, data, width * bytesPerPixel, (descriptor & 0x20) == 0, ByteOrder.LITTLE_ENDIAN, (buffer, y) -> {
+			
+			for(int index = 0; index < width; index++) {
+				
+				int x = rightToLeft ? width - 1 - index : index;
+				
+				if(bytesPerPixel == 1) {
+					
+					int gray = buffer.get() & 0xFF;
+					data[x][y] = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+				
+				} else if(bytesPerPixel == 3) {
+					
+					data[x][y] = 0xFF000000 | (buffer.get() & 0xFF) | ((buffer.get() & 0xFF) << 8) | ((buffer.get() & 0xFF) << 16);
+				
+				} else {
+					
+					int pixel = buffer.getInt();
+					data[x][y] = hasAlpha ? pixel : pixel | 0xFF000000;
+				}
+			}
+		});
+		
+		return data;
+	}
+	
+	private static final int[][] __allocate(FileChannel channel, long offset, int width, int height, long stride) throws IOException {
+		
+		if(width < 1 || height < 1 || stride > Integer.MAX_VALUE) {
+			
+			throw new IOException("Invalid image size " + width + "x" + height + "!");
+		}
+		
+		// A corrupt header could otherwise request far more memory than the file is able to fill
+		if(offset + stride * height > channel.size()) {
+			
+			throw new EOFException("Unexpected end of file!");
+		}
+		
+		return new int[width][height];
+	}
+	
+	private static final void __writeRows(FileChannel channel, int[][] data, int stride, ByteOrder order, RowEncoder encoder) throws IOException {
+		
+		int height = data[0].length;
+		int rowsPerChunk = Math.max(1, Math.min(height, RawCodec.CHUNK_SIZE / stride));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(rowsPerChunk * stride).order(order);
+		
+		for(int y = 0; y < height;) {
+			
+			buffer.clear();
+			
+			for(int row = 0; row < rowsPerChunk && y < height; row++, y++) {
+				
+				encoder.encode(buffer, y);
+			}
+			
+			buffer.flip();
+			RawCodec.__writeFully(channel, buffer);
+		}
+	}
+	
+	private static final void __readRows(FileChannel channel, long offset, int[][] data, int stride, boolean bottomUp, ByteOrder order, RowDecoder decoder) throws IOException {
+		
+		int height = data[0].length;
+		int rowsPerChunk = Math.max(1, Math.min(height, RawCodec.CHUNK_SIZE / stride));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(rowsPerChunk * stride).order(order);
+		long position = offset;
+		
+		for(int row = 0; row < height;) {
+			
+			int rows = Math.min(rowsPerChunk, height - row);
+			buffer.clear().limit(rows * stride);
+			
+			while(buffer.hasRemaining()) {
+				
+				int read = channel.read(buffer, position);
+				
+				if(read < 0) {
+					
+					throw new EOFException("Unexpected end of file!");
+				}
+				
+				position += read;
+			}
+			
+			buffer.flip();
+			
+			for(int index = 0; index < rows; index++, row++) {
+				
+				decoder.decode(buffer, bottomUp ? height - 1 - row : row);
+			}
+		}
+	}
+	
+	private static final void __writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		
+		while(buffer.hasRemaining()) {
+			
+			channel.write(buffer);
+		}
+	}
+	
+	private static final ByteBuffer __ascii(String text) {
+		
+		return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	private static final String __token(ByteBuffer header) throws IOException {
+		
+		StringBuilder token = new StringBuilder();
+		
+		while(header.hasRemaining()) {
+			
+			char character = (char)(header.get(header.position()) & 0xFF);
+			
+			if(character == '#' && token.length() == 0) {
+				
+				while(header.hasRemaining() && header.get() != '\n');
+			
+			} else if(Character.isWhitespace(character)) {
+				
+				if(token.length() > 0) {
+					
+					return token.toString();
+				}
+				
+				header.get();
+			
+			} else {
+				
+				token.append(character);
+				header.get();
+			}
+		}
+		
+		throw new IOException("The header is incomplete!");
+	}
+	
+	private static final int __number(ByteBuffer header) throws IOException {
+		
+		String token = RawCodec.__token(header);
+		
+		try {
+			
+			return Integer.parseInt(token);
+		
+		} catch(NumberFormatException exception) {
+			
+			throw new IOException("Invalid number " + token + " in header!");
+		}
+	}
+	
+	@FunctionalInterface
+	private static interface RowEncoder {
+		
+		public void encode(ByteBuffer buffer, int y);
+	}
+	
+	@FunctionalInterface
+	private static interface RowDecoder {
+		
+		public void decode(ByteBuffer buffer, int y);
+	}
+}
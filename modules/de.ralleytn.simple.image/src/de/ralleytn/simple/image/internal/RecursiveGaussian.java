@@ -0,0 +1,223 @@
+package de.ralleytn.simple.image.internal;
+
+import java.awt.Rectangle;
+
+public final class RecursiveGaussian {
+	
+	// Number of rows that are copied into lines at once for the horizontal pass, so that each column is read in short runs
+	private static final int ROWS = 16;
+	
+	private final double gain;
+	private final double a1;
+	private final double a2;
+	private final double a3;
+	private final boolean continueEdges;
+	
+	// Maps the last three values of the forward pass to the three values behind the end of the line that the backward pass starts with
+	private final double[] end = new double[9];
+	
+	public RecursiveGaussian(double sigma, boolean continueEdges) {
+		
+		// Coefficients from "Recursive implementation of the Gaussian filter" by Young and van Vliet, 1995
+		double q = sigma >= 2.5D ? 0.98711D * sigma - 0.96330D : 3.97156D - 4.14554D * Math.sqrt(1.0D - 0.26891D * sigma);
+		double q2 = q * q;
+		double q3 = q2 * q;
+		double b0 = 1.57825D + 2.44413D * q + 1.4281D * q2 + 0.422205D * q3;
+		
+		this.a1 = (2.44413D * q + 2.85619D * q2 + 1.26661D * q3) / b0;
+		this.a2 = -(1.4281D * q2 + 1.26661D * q3) / b0;
+		this.a3 = 0.422205D * q3 / b0;
+		this.gain = 1.0D - (this.a1 + this.a2 + this.a3);
+		this.continueEdges = continueEdges;
+		
+		// Following "Boundary conditions for Young - van Vliet recursive filtering" by Triggs and Sdika, the backward pass starts as if the line went on forever.
+		// Because the filter is linear, this only depends on how far the last three values of the forward pass are away from the value beyond the edge.
+		// Instead of using the closed form, the response to each of these differences is simply run through both passes until it has faded.
+		int length = (int)Math.ceil(sigma * 20.0D) + 100;
+		double[] forward = new double[length + 3];
+		
+		for(int difference = 0; difference < 3; difference++) {
+			
+			forward[0] = difference == 2 ? 1.0D : 0.0D;
+			forward[1] = difference == 1 ? 1.0D : 0.0D;
+			forward[2] = difference == 0 ? 1.0D : 0.0D;
+			
+			for(int index = 3; index < length + 3; index++) {
+				
+				forward[index] = this.a1 * forward[index - 1] + this.a2 * forward[index - 2] + this.a3 * forward[index - 3];
+			}
+			
+			double y1 = 0.0D;
+			double y2 = 0.0D;
+			double y3 = 0.0D;
+			
+			for(int index = length + 2; index >= 3; index--) {
+				
+				double y = this.gain * forward[index] + this.a1 * y1 + this.a2 * y2 + this.a3 * y3;
+				y3 = y2;
+				y2 = y1;
+				y1 = y;
+				
+				if(index <= 5) {
+					
+					this.end[(index - 3) * 3 + difference] = y;
+				}
+			}
+		}
+	}
+	
+	// Blurs the red, green and blue channel, the alpha channel and the pixels outside of the bounds are kept
+	public void blur(int[][] source, int[][] target, Rectangle bounds, int parallelism) {
+		
+		int width = source.length;
+		int height = source[0].length;
+		int fromX = Math.max(0, bounds.x);
+		int toX = Math.min(width, bounds.x + bounds.width);
+		int fromY = Math.max(0, bounds.y);
+		int toY = Math.min(height, bounds.y + bounds.height);
+		
+		for(int x = 0; x < width; x++) {
+			
+			System.arraycopy(source[x], 0, target[x], 0, height);
+		}
+		
+		if(fromX >= toX || fromY >= toY) {
+			
+			return;
+		}
+		
+		// Each output pixel depends on its whole row and column, so the vertical pass runs over all columns.
+		// Its result is only needed for the rows inside of the bounds. It is kept as float, as rounding it to 8 bits
+		// before the horizontal pass would add up to an error of several color values.
+		int rows = toY - fromY;
+		float[][] columnReds = new float[width][rows];
+		float[][] columnGreens = new float[width][rows];
+		float[][] columnBlues = new float[width][rows];
+		
+		Parallel.run(width, (long)width * height, parallelism, (from, to) -> {
+			
+			float[] reds = new float[height];
+			float[] greens = new float[height];
+			float[] blues = new float[height];
+			
+			for(int x = from; x < to; x++) {
+				
+				int[] column = source[x];
+				
+				for(int y = 0; y < height; y++) {
+					
+					int pixel = column[y];
+					reds[y] = (pixel >> 16) & 0xFF;
+					greens[y] = (pixel >> 8) & 0xFF;
+					blues[y] = pixel & 0xFF;
+				}
+				
+				this.filter(reds, height);
+				this.filter(greens, height);
+				this.filter(blues, height);
+				
+				System.arraycopy(reds, fromY, columnReds[x], 0, rows);
+				System.arraycopy(greens, fromY, columnGreens[x], 0, rows);
+				System.arraycopy(blues, fromY, columnBlues[x], 0, rows);
+			}
+		});
+		
+		int blocks = (rows + RecursiveGaussian.ROWS - 1) / RecursiveGaussian.ROWS;
+		
+		Parallel.run(blocks, (long)width * rows, parallelism, (from, to) -> {
+			
+			float[][] reds = new float[RecursiveGaussian.ROWS][width];
+			float[][] greens = new float[RecursiveGaussian.ROWS][width];
+			float[][] blues = new float[RecursiveGaussian.ROWS][width];
+			
+			for(int block = from; block < to; block++) {
+				
+				int firstRow = block * RecursiveGaussian.ROWS;
+				int blockRows = Math.min(RecursiveGaussian.ROWS, rows - firstRow);
+				
+				for(int x = 0; x < width; x++) {
+					
+					float[] columnRed = columnReds[x];
+					float[] columnGreen = columnGreens[x];
+					float[] columnBlue = columnBlues[x];
+					
+					for(int row = 0; row < blockRows; row++) {
+						
+						reds[row][x] = columnRed[firstRow + row];
+						greens[row][x] = columnGreen[firstRow + row];
+						blues[row][x] = columnBlue[firstRow + row];
+					}
+				}
+				
+				for(int row = 0; row < blockRows; row++) {
+					
+					this.filter(reds[row], width);
+					this.filter(greens[row], width);
+					this.filter(blues[row], width);
+				}
+				
+				for(int x = fromX; x < toX; x++) {
+					
+					int[] column = target[x];
+					
+					for(int row = 0; row < blockRows; row++) {
+						
+						int y = fromY + firstRow + row;
+						column[y] = (column[y] & 0xFF000000) | RecursiveGaussian.color(reds[row][x], greens[row][x], blues[row][x]);
+					}
+				}
+			}
+		});
+	}
+	
+	private void filter(float[] line, int length) {
+		
+		double gain = this.gain;
+		double a1 = this.a1;
+		double a2 = this.a2;
+		double a3 = this.a3;
+		
+		// With EDGE_CONTINUE the line goes on with the pixel on the edge, otherwise with black
+		double first = this.continueEdges ? line[0] : 0.0D;
+		double last = this.continueEdges ? line[length - 1] : 0.0D;
+		double w1 = first;
+		double w2 = first;
+		double w3 = first;
+		
+		for(int index = 0; index < length; index++) {
+			
+			double w = gain * line[index] + a1 * w1 + a2 * w2 + a3 * w3;
+			line[index] = (float)w;
+			w3 = w2;
+			w2 = w1;
+			w1 = w;
+		}
+		
+		double[] end = this.end;
+		double difference1 = w1 - last;
+		double difference2 = w2 - last;
+		double difference3 = w3 - last;
+		double y1 = last + end[0] * difference1 + end[1] * difference2 + end[2] * difference3;
+		double y2 = last + end[3] * difference1 + end[4] * difference2 + end[5] * difference3;
+		double y3 = last + end[6] * difference1 + end[7] * difference2 + end[8] * difference3;
+		
+		for(int index = length - 1; index >= 0; index--) {
+			
+			double y = gain * line[index] + a1 * y1 + a2 * y2 + a3 * y3;
+			line[index] = (float)y;
+			y3 = y2;
+			y2 = y1;
+			y1 = y;
+		}
+	}
+	
+	private static final int color(float red, float green, float blue) {
+		
+		return RecursiveGaussian.channel(red) << 16 | RecursiveGaussian.channel(green) << 8 | RecursiveGaussian.channel(blue);
+	}
+	
+	private static final int channel(float value) {
+		
+		return Math.max(0, Math.min(255, (int)(value + 0.5F)));
+	}
+}
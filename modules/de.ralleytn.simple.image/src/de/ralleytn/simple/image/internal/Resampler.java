@@ -0,0 +1,807 @@
+package de.ralleytn.simple.image.internal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import de.ralleytn.simple.image.ScaleAlgorithm;
+
+public final class Resampler {
+	
+	// Weights are stored as fixed point numbers with this many fractional bits.
+	// The sum of the absolute weights never exceeds 2, so a channel sum always fits into an int.
+	public static final int PRECISION = 14;
+	private static final int ONE = 1 << Resampler.PRECISION;
+	private static final int HALF = 1 << (Resampler.PRECISION - 1);
+	private static final int BLOCK_SIZE = 16;
+	
+	private Resampler() {}
+	
+	public static final ScaleAlgorithm algorithm(Kernel kernel, int parallelism) {
+		
+		return new ScaleAlgorithm() {
+			
+			@Override
+			public void calc(int[][] source, int[][] target) {
+				
+				Resampler.resample(source, target, kernel, parallelism);
+			}
+			
+			@Override
+			public ScaleAlgorithm withParallelism(int newParallelism) {
+				
+				return Resampler.algorithm(kernel, Parallel.checkParallelism(newParallelism));
+			}
+		};
+	}
+	
+	public static final void resample(int[][] source, int[][] target, Kernel kernel, int parallelism) {
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int targetWidth = target.length;
+		int targetHeight = target[0].length;
+		boolean opaque = Resampler.isOpaque(source);
+		int[][] input = opaque ? source : Resampler.premultiply(source, parallelism);
+		int[][] intermediate = new int[srcHeight][targetWidth];
+		Weights horizontal = Resampler.weights(srcWidth, targetWidth, kernel);
+		Weights vertical = Resampler.weights(srcHeight, targetHeight, kernel);
+		
+		// The horizontal pass always runs first, so the result does not depend on which order would be cheaper.
+		// Both passes are split into bands of target columns or rows that only write their own pixels.
+		Parallel.run(targetWidth, (long)srcHeight * targetWidth, parallelism, (fromX, toX) -> Resampler.horizontal(input, intermediate, horizontal, fromX, toX, opaque));
+		Parallel.run(targetHeight, (long)targetWidth * targetHeight, parallelism, (fromY, toY) -> Resampler.vertical(intermediate, target, vertical, fromY, toY, opaque));
+	}
+	
+	public static final ScaleAlgorithm areaAveraging(int parallelism) {
+		
+		return new ScaleAlgorithm() {
+			
+			@Override
+			public void calc(int[][] source, int[][] target) {
+				
+				Resampler.areaAverage(source, target, parallelism);
+			}
+			
+			@Override
+			public ScaleAlgorithm withParallelism(int newParallelism) {
+				
+				return Resampler.areaAveraging(Parallel.checkParallelism(newParallelism));
+			}
+		};
+	}
+	
+	public static final void areaAverage(int[][] source, int[][] target, int parallelism) {
+		
+		// Pixel borders are measured in units of 1 / (srcSize * targetSize) of the image.
+		// A source pixel is targetSize units long and a target pixel srcSize units, so every overlap is an exact integer.
+		// Each source column is first reduced to the target height and then added to the target columns it overlaps.
+		// A column that overlaps two target columns is reduced once and reused, so the source is read exactly once.
+		// The colors are weighted with their alpha, so that transparent pixels do not bleed their color into the result.
+		// The coverage of both axes is the same for all bands, so it is only calculated once.
+		
+		int targetWidth = target.length;
+		Coverage horizontal = new Coverage(source.length, targetWidth);
+		Coverage vertical = new Coverage(source[0].length, target[0].length);
+		
+		Parallel.run(targetWidth, (long)targetWidth * target[0].length, parallelism, (fromX, toX) -> Resampler.areaAverage(source, target, horizontal, vertical, fromX, toX));
+	}
+	
+	private static final void areaAverage(int[][] source, int[][] target, Coverage horizontal, Coverage vertical, int fromX, int toX) {
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int targetHeight = target[0].length;
+		long[][] reduced = new long[4][targetHeight];
+		long[][] sums = new long[4][targetHeight];
+		long area = (long)srcWidth * srcHeight;
+		int reducedX = -1;
+		
+		for(int targetX = fromX; targetX < toX; targetX++) {
+			
+			for(int channel = 0; channel < 4; channel++) {
+				
+				Arrays.fill(sums[channel], 0L);
+			}
+			
+			for(int srcX = horizontal.first[targetX]; srcX <= horizontal.last[targetX]; srcX++) {
+				
+				if(srcX != reducedX) {
+					
+					Resampler.reduce(source[srcX], reduced, vertical);
+					reducedX = srcX;
+				}
+				
+				long weight = horizontal.weights[horizontal.offsets[targetX] + srcX - horizontal.first[targetX]];
+				
+				for(int channel = 0; channel < 4; channel++) {
+					
+					long[] sum = sums[channel];
+					long[] values = reduced[channel];
+					
+					for(int targetY = 0; targetY < targetHeight; targetY++) {
+						
+						sum[targetY] += weight * values[targetY];
+					}
+				}
+			}
+			
+			int[] column = target[targetX];
+			
+			for(int targetY = 0; targetY < targetHeight; targetY++) {
+				
+				column[targetY] = Resampler.average(sums[0][targetY], sums[1][targetY], sums[2][targetY], sums[3][targetY], area);
+			}
+		}
+	}
+	
+	private static final void reduce(int[] line, long[][] reduced, Coverage coverage) {
+		
+		long[] alpha = reduced[0];
+		long[] red = reduced[1];
+		long[] green = reduced[2];
+		long[] blue = reduced[3];
+		
+		for(int targetY = 0; targetY < alpha.length; targetY++) {
+			
+			long sumAlpha = 0L;
+			long sumRed = 0L;
+			long sumGreen = 0L;
+			long sumBlue = 0L;
+			
+			int offset = coverage.offsets[targetY] - coverage.first[targetY];
+			
+			for(int srcY = coverage.first[targetY]; srcY <= coverage.last[targetY]; srcY++) {
+				
+				int pixel = line[srcY];
+				long weight = (long)(pixel >>> 24) * coverage.weights[offset + srcY];
+				sumAlpha += weight;
+				sumRed += ((pixel >> 16) & 0xFF) * weight;
+				sumGreen += ((pixel >> 8) & 0xFF) * weight;
+				sumBlue += (pixel & 0xFF) * weight;
+			}
+			
+			alpha[targetY] = sumAlpha;
+			red[targetY] = sumRed;
+			green[targetY] = sumGreen;
+			blue[targetY] = sumBlue;
+		}
+	}
+	
+	private static final int average(long alpha, long red, long green, long blue, long area) {
+		
+		// The sum of all weights is the area, the colors were weighted with the alpha as well, so they are divided by the sum of the alpha
+		int average = (int)((alpha + area / 2) / area);
+		
+		if(average == 0) {
+			
+			return 0;
+		}
+		
+		long half = alpha / 2;
+		return (average << 24) | ((int)((red + half) / alpha) << 16) | ((int)((green + half) / alpha) << 8) | (int)((blue + half) / alpha);
+	}
+	
+	public static final Weights weights(int srcSize, int targetSize, Kernel kernel) {
+		
+		double ratio = (double)srcSize / targetSize;
+		
+		// When downscaling, the kernel is stretched so that it covers all source pixels that fall into one target pixel
+		double scale = Math.max(1.0D, ratio);
+		double support = kernel.getSupport() * scale;
+		int maxTaps = Math.min(srcSize, (int)Math.ceil(support * 2.0D) + 1);
+		int[] start = new int[targetSize];
+		int[] taps = new int[targetSize];
+		int[] weights = new int[targetSize * maxTaps];
+		double[] values = new double[maxTaps];
+		
+		for(int index = 0; index < targetSize; index++) {
+			
+			double center = (index + 0.5D) * ratio;
+			int first = Math.max(0, (int)Math.floor(center - support));
+			int last = Math.min(srcSize, (int)Math.ceil(center + support));
+			double sum = 0.0D;
+			int count = 0;
+			
+			for(int position = first; position < last && count < maxTaps; position++) {
+				
+				double value = kernel.weight((position + 0.5D - center) / scale);
+				
+				// Leading and trailing zero weights are cut off, they only cost time
+				if(count == 0 && value == 0.0D) {
+					
+					first = position + 1;
+					continue;
+				}
+				
+				values[count++] = value;
+				sum += value;
+			}
+			
+			while(count > 1 && values[count - 1] == 0.0D) {
+				
+				count--;
+			}
+			
+			if(count == 0 || sum == 0.0D) {
+				
+				first = Math.min(srcSize - 1, (int)center);
+				values[0] = 1.0D;
+				count = 1;
+				sum = 1.0D;
+			}
+			
+			int offset = index * maxTaps;
+			int total = 0;
+			int largest = 0;
+			
+			for(int tap = 0; tap < count; tap++) {
+				
+				int weight = (int)Math.round(values[tap] / sum * Resampler.ONE);
+				weights[offset + tap] = weight;
+				total += weight;
+				
+				if(Math.abs(weight) > Math.abs(weights[offset + largest])) {
+					
+					largest = tap;
+				}
+			}
+			
+			// Rounding errors are put on the largest weight so that a plain color stays exactly the same
+			weights[offset + largest] += Resampler.ONE - total;
+			start[index] = first;
+			taps[index] = count;
+		}
+		
+		return new Weights(start, taps, weights, maxTaps);
+	}
+	
+	// Both passes add up whole lines of pixels, which are contiguous arrays, so that the JIT compiler can vectorize the loops.
+	// The horizontal pass reads the columns of the source and writes the intermediate image row by row, as an array of rows.
+	// The vertical pass reads these rows and writes the columns of the target.
+	
+	public static final void horizontal(int[][] source, int[][] rows, Weights weights, int fromX, int toX, boolean opaque) {
+		
+		int height = source[0].length;
+		Accumulator accumulator = new Accumulator(height, opaque);
+		int[][] block = new int[Resampler.BLOCK_SIZE][height];
+		
+		// Writing a single column into the rows would touch a different row for every pixel,
+		// so a few columns are collected first and then written together.
+		for(int blockX = fromX; blockX < toX; blockX += Resampler.BLOCK_SIZE) {
+			
+			int columns = Math.min(Resampler.BLOCK_SIZE, toX - blockX);
+			
+			for(int column = 0; column < columns; column++) {
+				
+				accumulator.add(source, weights, blockX + column);
+				
+				for(int y = 0; y < height; y++) {
+					
+					block[column][y] = accumulator.get(y);
+				}
+			}
+			
+			for(int y = 0; y < height; y++) {
+				
+				int[] row = rows[y];
+				
+				for(int column = 0; column < columns; column++) {
+					
+					row[blockX + column] = block[column][y];
+				}
+			}
+		}
+	}
+	
+	public static final void vertical(int[][] rows, int[][] target, Weights weights, int fromY, int toY, boolean opaque) {
+		
+		int width = target.length;
+		Accumulator accumulator = new Accumulator(width, opaque);
+		
+		for(int targetY = fromY; targetY < toY; targetY++) {
+			
+			accumulator.add(rows, weights, targetY);
+			
+			for(int x = 0; x < width; x++) {
+				
+				int pixel = accumulator.get(x);
+				target[x][targetY] = opaque ? pixel : Resampler.unpremultiply(pixel);
+			}
+		}
+	}
+	
+	public static final boolean isOpaque(int[][] data) {
+		
+		for(int[] column : data) {
+			
+			for(int pixel : column) {
+				
+				if((pixel >>> 24) != 0xFF) {
+					
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	public static final int[][] premultiply(int[][] data, int parallelism) {
+		
+		int[][] result = new int[data.length][];
+		
+		Parallel.run(data.length, (long)data.length * data[0].length, parallelism, (fromX, toX) -> {
+			
+			for(int x = fromX; x < toX; x++) {
+				
+				int[] column = data[x];
+				int[] premultiplied = new int[column.length];
+				
+				for(int y = 0; y < column.length; y++) {
+					
+					premultiplied[y] = Resampler.premultiply(column[y]);
+				}
+				
+				result[x] = premultiplied;
+			}
+		});
+		
+		return result;
+	}
+	
+	public static final int premultiply(int pixel) {
+		
+		int alpha = pixel >>> 24;
+		
+		if(alpha == 0xFF) {
+			
+			return pixel;
+		}
+		
+		int red = (((pixel >> 16) & 0xFF) * alpha + 127) / 255;
+		int green = (((pixel >> 8) & 0xFF) * alpha + 127) / 255;
+		int blue = ((pixel & 0xFF) * alpha + 127) / 255;
+		return (alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+	
+	public static final int unpremultiply(int pixel) {
+		
+		int alpha = pixel >>> 24;
+		
+		if(alpha == 0xFF) {
+			
+			return pixel;
+		}
+		
+		if(alpha == 0) {
+			
+			return 0;
+		}
+		
+		int red = Math.min(255, (((pixel >> 16) & 0xFF) * 255 + alpha / 2) / alpha);
+		int green = Math.min(255, (((pixel >> 8) & 0xFF) * 255 + alpha / 2) / alpha);
+		int blue = Math.min(255, ((pixel & 0xFF) * 255 + alpha / 2) / alpha);
+		return (alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+	
+	private static final int pack(int alpha, int red, int green, int blue) {
+		
+		return (Resampler.clamp(alpha) << 24) | (Resampler.clamp(red) << 16) | (Resampler.clamp(green) << 8) | Resampler.clamp(blue);
+	}
+	
+	private static final int clamp(int sum) {
+		
+		int value = sum >> Resampler.PRECISION;
+		return value < 0 ? 0 : value > 255 ? 255 : value;
+	}
+	
+	private static final class Accumulator {
+		
+		private final int length;
+		private final boolean opaque;
+		private final int[] alpha;
+		private final int[] red;
+		private final int[] green;
+		private final int[] blue;
+		
+		private Accumulator(int length, boolean opaque) {
+			
+			this.length = length;
+			this.opaque = opaque;
+			this.alpha = opaque ? null : new int[length];
+			this.red = new int[length];
+			this.green = new int[length];
+			this.blue = new int[length];
+		}
+		
+		private void add(int[][] lines, Weights weights, int index) {
+			
+			int start = weights.start[index];
+			int taps = weights.taps[index];
+			int offset = index * weights.stride;
+			int[] alpha = this.alpha;
+			int[] red = this.red;
+			int[] green = this.green;
+			int[] blue = this.blue;
+			
+			Arrays.fill(red, Resampler.HALF);
+			Arrays.fill(green, Resampler.HALF);
+			Arrays.fill(blue, Resampler.HALF);
+			
+			// The alpha channel of an opaque image does not have to be computed, it is always 255
+			if(this.opaque) {
+				
+				for(int tap = 0; tap < taps; tap++) {
+					
+					int[] line = lines[start + tap];
+					int weight = weights.weights[offset + tap];
+					
+					for(int position = 0; position < this.length; position++) {
+						
+						int pixel = line[position];
+						red[position] += ((pixel >> 16) & 0xFF) * weight;
+						green[position] += ((pixel >> 8) & 0xFF) * weight;
+						blue[position] += (pixel & 0xFF) * weight;
+					}
+				}
+			
+			} else {
+				
+				Arrays.fill(alpha, Resampler.HALF);
+				
+				for(int tap = 0; tap < taps; tap++) {
+					
+					int[] line = lines[start + tap];
+					int weight = weights.weights[offset + tap];
+					
+					for(int position = 0; position < this.length; position++) {
+						
+						int pixel = line[position];
+						alpha[position] += (pixel >>> 24) * weight;
+						red[position] += ((pixel >> 16) & 0xFF) * weight;
+						green[position] += ((pixel >> 8) & 0xFF) * weight;
+						blue[position] += (pixel & 0xFF) * weight;
+					}
+				}
+			}
+		}
+		
+		private int get(int position) {
+			
+			return Resampler.pack(this.opaque ? 0xFF << Resampler.PRECISION : this.alpha[position], this.red[position], this.green[position], this.blue[position]);
+		}
+	}
+	
+	public static final Streaming.Factory rows(Kernel kernel) {
+		
+		return (srcWidth, srcHeight, targetWidth, targetHeight, output) -> new RowResampler(srcWidth, srcHeight, targetWidth, targetHeight, kernel, output);
+	}
+	
+	// Resampling for images that arrive row by row. Every row is filtered horizontally right away,
+	// only the filtered rows that are still needed by the vertical filter are kept.
+	// As the result of resample does not depend on whether the image is opaque, the alpha channel is always computed here.
+	public static final class RowResampler implements Streaming.Scaler {
+		
+		private final Weights horizontal;
+		private final Weights vertical;
+		private final int[][] window;
+		private final int[] firstNeeded;
+		private final int[] premultiplied;
+		private final int[] target;
+		private final Accumulator accumulator;
+		private final ArrayDeque<int[]> unused;
+		private final Streaming.Output output;
+		private int released;
+		private int srcY;
+		private int targetY;
+		
+		public RowResampler(int srcWidth, int srcHeight, int targetWidth, int targetHeight, Kernel kernel, Streaming.Output output) {
+			
+			this.horizontal = Resampler.weights(srcWidth, targetWidth, kernel);
+			this.vertical = Resampler.weights(srcHeight, targetHeight, kernel);
+			this.window = new int[srcHeight][];
+			this.firstNeeded = new int[targetHeight + 1];
+			this.premultiplied = new int[srcWidth];
+			this.target = new int[targetWidth];
+			this.accumulator = new Accumulator(targetWidth, false);
+			this.unused = new ArrayDeque<>();
+			this.output = output;
+			
+			// The first source row that is needed by any of the remaining target rows
+			this.firstNeeded[targetHeight] = srcHeight;
+			
+			for(int index = targetHeight - 1; index >= 0; index--) {
+				
+				this.firstNeeded[index] = Math.min(this.firstNeeded[index + 1], this.vertical.start[index]);
+			}
+		}
+		
+		@Override
+		public void add(int[] row) throws IOException {
+			
+			for(int x = 0; x < row.length; x++) {
+				
+				this.premultiplied[x] = Resampler.premultiply(row[x]);
+			}
+			
+			int[] filtered = this.unused.isEmpty() ? new int[this.target.length] : this.unused.pop();
+			this.filter(filtered);
+			this.window[this.srcY] = filtered;
+			
+			while(this.targetY < this.firstNeeded.length - 1 && this.vertical.start[this.targetY] + this.vertical.taps[this.targetY] - 1 <= this.srcY) {
+				
+				this.accumulator.add(this.window, this.vertical, this.targetY);
+				
+				for(int x = 0; x < this.target.length; x++) {
+					
+					this.target[x] = Resampler.unpremultiply(this.accumulator.get(x));
+				}
+				
+				this.output.write(this.target);
+				this.targetY++;
+			}
+			
+			while(this.released < Math.min(this.firstNeeded[this.targetY], this.srcY + 1)) {
+				
+				this.unused.push(this.window[this.released]);
+				this.window[this.released++] = null;
+			}
+			
+			this.srcY++;
+		}
+		
+		private void filter(int[] filtered) {
+			
+			// The same sums as in the horizontal pass, only in a different order, which does not change the result
+			int[] weights = this.horizontal.weights;
+			
+			for(int targetX = 0; targetX < filtered.length; targetX++) {
+				
+				int start = this.horizontal.start[targetX];
+				int taps = this.horizontal.taps[targetX];
+				int offset = targetX * this.horizontal.stride;
+				int alpha = Resampler.HALF;
+				int red = Resampler.HALF;
+				int green = Resampler.HALF;
+				int blue = Resampler.HALF;
+				
+				for(int tap = 0; tap < taps; tap++) {
+					
+					int pixel = this.premultiplied[start + tap];
+					int weight = weights[offset + tap];
+					alpha += (pixel >>> 24) * weight;
+					red += ((pixel >> 16) & 0xFF) * weight;
+					green += ((pixel >> 8) & 0xFF) * weight;
+					blue += (pixel & 0xFF) * weight;
+				}
+				
+				filtered[targetX] = Resampler.pack(alpha, red, green, blue);
+			}
+		}
+	}
+	
+	// Area averaging for images that arrive row by row, so that the whole source never has to be in memory.
+	// Every row is reduced to the target width right away and added to the target rows it overlaps.
+	// The result is exactly the same as the one of areaAverage.
+	public static final class RowAverager implements Streaming.Scaler {
+		
+		private final int srcHeight;
+		private final int targetHeight;
+		private final Coverage horizontal;
+		private final long[][] reduced;
+		private final long[][] sums;
+		private final int[] target;
+		private final long area;
+		private final Streaming.Output output;
+		private int srcY;
+		private int targetY;
+		
+		public RowAverager(int srcWidth, int srcHeight, int targetWidth, int targetHeight, Streaming.Output output) {
+			
+			this.srcHeight = srcHeight;
+			this.targetHeight = targetHeight;
+			this.horizontal = new Coverage(srcWidth, targetWidth);
+			this.reduced = new long[4][targetWidth];
+			this.sums = new long[4][targetWidth];
+			this.target = new int[targetWidth];
+			this.area = (long)srcWidth * srcHeight;
+			this.output = output;
+		}
+		
+		@Override
+		public void add(int[] row) throws IOException {
+			
+			Resampler.reduce(row, this.reduced, this.horizontal);
+			
+			// The source row covers [srcY * targetHeight, (srcY + 1) * targetHeight), a target row ends at (targetY + 1) * srcHeight
+			long position = (long)this.srcY * this.targetHeight;
+			long end = position + this.targetHeight;
+			
+			while(position < end) {
+				
+				long border = (long)(this.targetY + 1) * this.srcHeight;
+				long weight = Math.min(end, border) - position;
+				
+				for(int channel = 0; channel < 4; channel++) {
+					
+					long[] sum = this.sums[channel];
+					long[] values = this.reduced[channel];
+					
+					for(int index = 0; index < sum.length; index++) {
+						
+						sum[index] += weight * values[index];
+					}
+				}
+				
+				if(end < border) {
+					
+					break;
+				}
+				
+				this.emit();
+				position = border;
+			}
+			
+			this.srcY++;
+		}
+		
+		private void emit() throws IOException {
+			
+			long[] alpha = this.sums[0];
+			long[] red = this.sums[1];
+			long[] green = this.sums[2];
+			long[] blue = this.sums[3];
+			
+			for(int targetX = 0; targetX < this.target.length; targetX++) {
+				
+				this.target[targetX] = Resampler.average(alpha[targetX], red[targetX], green[targetX], blue[targetX], this.area);
+			}
+			
+			for(long[] channel : this.sums) {
+				
+				Arrays.fill(channel, 0L);
+			}
+			
+			this.output.write(this.target);
+			this.targetY++;
+		}
+	}
+	
+	private static final class Coverage {
+		
+		private final int[] first;
+		private final int[] last;
+		private final int[] offsets;
+		private final int[] weights;
+		
+		private Coverage(int srcSize, int targetSize) {
+			
+			this.first = new int[targetSize];
+			this.last = new int[targetSize];
+			this.offsets = new int[targetSize];
+			int count = 0;
+			
+			for(int index = 0; index < targetSize; index++) {
+				
+				// The target pixel covers [index * srcSize, (index + 1) * srcSize), a source pixel is targetSize units long
+				this.first[index] = (int)((long)index * srcSize / targetSize);
+				this.last[index] = (int)(((long)(index + 1) * srcSize - 1) / targetSize);
+				this.offsets[index] = count;
+				count += this.last[index] - this.first[index] + 1;
+			}
+			
+			this.weights = new int[count];
+			
+			for(int index = 0; index < targetSize; index++) {
+				
+				for(int srcIndex = this.first[index]; srcIndex <= this.last[index]; srcIndex++) {
+					
+					long start = Math.max((long)srcIndex * targetSize, (long)index * srcSize);
+					long end = Math.min((long)(srcIndex + 1) * targetSize, (long)(index + 1) * srcSize);
+					this.weights[this.offsets[index] + srcIndex - this.first[index]] = (int)(end - start);
+				}
+			}
+		}
+	}
+	
+	public static enum Kernel {
+		
+		// Catmull-Rom spline, what most programs call bicubic
+		CATMULL_ROM(2.0D) {
+			
+			@Override
+			public double weight(double x) {
+				
+				return Kernel.cubic(x, 0.0D, 0.5D);
+			}
+		},
+		
+		MITCHELL(2.0D) {
+			
+			@Override
+			public double weight(double x) {
+				
+				return Kernel.cubic(x, 1.0D / 3.0D, 1.0D / 3.0D);
+			}
+		},
+		
+		LANCZOS3(3.0D) {
+			
+			@Override
+			public double weight(double x) {
+				
+				x = Math.abs(x);
+				return x < 3.0D ? Kernel.sinc(x) * Kernel.sinc(x / 3.0D) : 0.0D;
+			}
+		};
+		
+		private final double support;
+		
+		private Kernel(double support) {
+			
+			this.support = support;
+		}
+		
+		public abstract double weight(double x);
+		
+		public double getSupport() {
+			
+			return this.support;
+		}
+		
+		private static final double sinc(double x) {
+			
+			if(x == 0.0D) {
+				
+				return 1.0D;
+			}
+			
+			x *= Math.PI;
+			return Math.sin(x) / x;
+		}
+		
+		private static final double cubic(double x, double b, double c) {
+			
+			// Mitchell-Netravali family of cubic filters
+			x = Math.abs(x);
+			
+			if(x < 1.0D) {
+				
+				return ((12.0D - 9.0D * b - 6.0D * c) * x * x * x + (-18.0D + 12.0D * b + 6.0D * c) * x * x + (6.0D - 2.0D * b)) / 6.0D;
+			
+			} else if(x < 2.0D) {
+				
+				return ((-b - 6.0D * c) * x * x * x + (6.0D * b + 30.0D * c) * x * x + (-12.0D * b - 48.0D * c) * x + (8.0D * b + 24.0D * c)) / 6.0D;
+			}
+			
+			return 0.0D;
+		}
+	}
+	
+	public static final class Weights {
+		
+		private final int[] start;
+		private final int[] taps;
+		private final int[] weights;
+		private final int stride;
+		
+		private Weights(int[] start, int[] taps, int[] weights, int stride) {
+			
+			this.start = start;
+			this.taps = taps;
+			this.weights = weights;
+			this.stride = stride;
+		}
+		
+		public int getStart(int index) {
+			
+			return this.start[index];
+		}
+		
+		public int getTaps(int index) {
+			
+			return this.taps[index];
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package de.ralleytn.simple.image.internal;
+
+import de.ralleytn.simple.image.RotationAlgorithm;
+
+public final class Rotations {
+	
+	// Side length of the tiles in which images are transposed, so that the columns that are read stay in the cache
+	private static final int BLOCK_SIZE = 64;
+	
+	// 1.0 as a 32.32 fixed point number
+	public static final double FIXED_ONE = 4294967296.0D;
+	
+	private Rotations() {}
+	
+	public static final int quarterTurns(double degrees) {
+		
+		double quarterTurns = degrees / 90.0D;
+		
+		if(!Double.isFinite(quarterTurns) || quarterTurns != Math.rint(quarterTurns)) {
+			
+			return -1;
+		}
+		
+		return (int)Math.floorMod((long)quarterTurns, 4L);
+	}
+	
+	public static final void rotateQuarterTurns(int[][] source, int[][] target, int quarterTurns, int rotationCenterX, int rotationCenterY, int fromX, int toX) {
+		
+		// The same mapping as the one of the rotation algorithms, but with the exact sine and cosine instead of
+		// Math.sin(Math.toRadians(90)) and the like, which are off by a tiny bit and sometimes round to the wrong pixel.
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int targetHeight = target[0].length;
+		int sin = quarterTurns == 1 ? 1 : quarterTurns == 3 ? -1 : 0;
+		int cos = quarterTurns == 0 ? 1 : quarterTurns == 2 ? -1 : 0;
+		
+		for(int blockY = 0; blockY < targetHeight; blockY += Rotations.BLOCK_SIZE) {
+			
+			int endY = Math.min(blockY + Rotations.BLOCK_SIZE, targetHeight);
+			
+			for(int targetX = fromX; targetX < toX; targetX++) {
+				
+				long startX = rotationCenterY - (long)rotationCenterY * sin - (long)(rotationCenterX - targetX) * cos;
+				long startY = rotationCenterX - (long)rotationCenterY * cos + (long)(rotationCenterY - targetX) * sin;
+				int[] targetColumn = target[targetX];
+				
+				for(int targetY = blockY; targetY < endY; targetY++) {
+					
+					long srcX = startX + (long)targetY * sin;
+					long srcY = startY + (long)targetY * cos;
+					
+					if(srcX >= 0 && srcX < srcWidth && srcY >= 0 && srcY < srcHeight) {
+						
+						targetColumn[targetY] = source[(int)srcX][(int)srcY];
+					}
+				}
+			}
+		}
+	}
+	
+	public static final int[][] transpose(int[][] source, boolean flipSrcX, boolean flipSrcY) {
+		
+		return Rotations.transpose(source, flipSrcX, flipSrcY, Parallel.DEFAULT_PARALLELISM);
+	}
+	
+	private static final int[][] transpose(int[][] source, boolean flipSrcX, boolean flipSrcY, int parallelism) {
+		
+		// target[x][y] = source[y][x], where the source X or Y position can be counted from the other end.
+		// A column of the target is a row of the source, which is spread over all source columns.
+		// Working in tiles keeps the touched source columns in the cache until all of their pixels in the tile have been read.
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int[][] target = new int[srcHeight][srcWidth];
+		
+		Parallel.run(srcHeight, (long)srcWidth * srcHeight, parallelism, (fromX, toX) -> {
+			
+			for(int blockY = 0; blockY < srcWidth; blockY += Rotations.BLOCK_SIZE) {
+				
+				int endY = Math.min(blockY + Rotations.BLOCK_SIZE, srcWidth);
+				
+				for(int targetX = fromX; targetX < toX; targetX++) {
+					
+					int[] targetColumn = target[targetX];
+					int srcY = flipSrcY ? srcHeight - 1 - targetX : targetX;
+					
+					for(int targetY = blockY; targetY < endY; targetY++) {
+						
+						targetColumn[targetY] = source[flipSrcX ? srcWidth - 1 - targetY : targetY][srcY];
+					}
+				}
+			}
+		});
+		
+		return target;
+	}
+	
+	public static final int[][] rotate180(int[][] source) {
+		
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		int[][] target = new int[srcWidth][srcHeight];
+		
+		for(int x = 0; x < srcWidth; x++) {
+			
+			int[] column = source[srcWidth - 1 - x];
+			int[] targetColumn = target[x];
+			
+			for(int y = 0, arrayY = srcHeight - 1; y < srcHeight; y++, arrayY--) {
+				
+				targetColumn[y] = column[arrayY];
+			}
+		}
+		
+		return target;
+	}
+	
+	public static final int[] interiorSpan(long startX, long stepX, int maxX, long startY, long stepY, int maxY, int length) {
+		
+		// Estimates the range in which 0 <= x < maxX and 0 <= y < maxY with floating point math.
+		// As the positions are linear, the range is a single run, so checking and moving its ends makes it exact.
+		
+		double[] span = {0, length};
+		Rotations.intersect(span, startX, stepX, maxX);
+		Rotations.intersect(span, startY, stepY, maxY);
+		
+		int start = (int)Math.max(0, Math.min(length, span[0]));
+		int end = (int)Math.max(start, Math.min(length, span[1]));
+		
+		while(start < end && !Rotations.interior(startX + start * stepX, maxX, startY + start * stepY, maxY)) {
+			
+			start++;
+		}
+		
+		while(end > start && !Rotations.interior(startX + (end - 1) * stepX, maxX, startY + (end - 1) * stepY, maxY)) {
+			
+			end--;
+		}
+		
+		if(start < end) {
+			
+			while(start > 0 && Rotations.interior(startX + (start - 1) * stepX, maxX, startY + (start - 1) * stepY, maxY)) {
+				
+				start--;
+			}
+			
+			while(end < length && Rotations.interior(startX + end * stepX, maxX, startY + end * stepY, maxY)) {
+				
+				end++;
+			}
+		}
+		
+		return new int[] {start, end};
+	}
+	
+	private static final void intersect(double[] span, long start, long step, int max) {
+		
+		double first = -start / Rotations.FIXED_ONE;
+		double last = max - start / Rotations.FIXED_ONE;
+		
+		if(step == 0) {
+			
+			if(first > 0 || last <= 0) {
+				
+				span[1] = span[0];
+			}
+		
+		} else {
+			
+			double speed = step / Rotations.FIXED_ONE;
+			double from = step > 0 ? first / speed : last / speed;
+			double to = step > 0 ? last / speed : first / speed;
+			span[0] = Math.max(span[0], Math.ceil(from));
+			span[1] = Math.min(span[1], Math.ceil(to));
+		}
+	}
+	
+	private static final boolean interior(long x, int maxX, long y, int maxY) {
+		
+		return x >= 0 && y >= 0 && (x >> 32) < maxX && (y >> 32) < maxY;
+	}
+	
+	public static final RotationAlgorithm threeShear(int parallelism) {
+		
+		return new RotationAlgorithm() {
+			
+			@Override
+			public void calc(int[][] source, int[][] target, double degrees, int rotationCenterX, int rotationCenterY) {
+				
+				Rotations.threeShear(source, target, degrees, rotationCenterX, rotationCenterY, parallelism);
+			}
+			
+			@Override
+			public RotationAlgorithm withParallelism(int newParallelism) {
+				
+				return Rotations.threeShear(Parallel.checkParallelism(newParallelism));
+			}
+		};
+	}
+	
+	public static final void threeShear(int[][] source, int[][] target, double degrees, int rotationCenterX, int rotationCenterY, int parallelism) {
+		
+		int targetWidth = target.length;
+		int targetHeight = target[0].length;
+		int quarterTurns = Rotations.quarterTurns(degrees);
+		
+		if(quarterTurns >= 0) {
+			
+			Parallel.run(targetWidth, (long)targetWidth * targetHeight, parallelism, (fromX, toX) -> Rotations.rotateQuarterTurns(source, target, quarterTurns, rotationCenterX, rotationCenterY, fromX, toX));
+			return;
+		}
+		
+		// The rotation algorithms map the target position t to the source position R * t + o with
+		// R = [cos sin; -sin cos] and o as below. R is split into an exact rotation by a multiple of 90 degrees, which is done
+		// by copying the pixels, and a rotation by at most 45 degrees, which is done with three shears:
+		// R = [1 0; beta 1] * [1 alpha; 0 1] * [1 0; beta 1] with alpha = sin and beta = -tan(angle / 2).
+		// Two of the shears move columns up and down, the other one moves rows sideways. Every shear interpolates linearly between two pixels.
+		// The shears work on premultiplied colors, so that the transparent pixels around the source do not darken its edges.
+		
+		double radians = Math.toRadians(degrees);
+		double sin = Math.sin(radians);
+		double cos = Math.cos(radians);
+		double offsetX = rotationCenterY - rotationCenterY * sin - rotationCenterX * cos;
+		double offsetY = rotationCenterX - rotationCenterY * cos + rotationCenterY * sin;
+		
+		long turns = Math.round(degrees / 90.0D);
+		int turn = (int)Math.floorMod(turns, 4L);
+		double rest = Math.toRadians(degrees - turns * 90.0D);
+		int srcWidth = source.length;
+		int srcHeight = source[0].length;
+		
+		// The turned source, its origin and the offset in its coordinates, which is R(-90 * turn) * o
+		int[][] input = Resampler.isOpaque(source) ? source : Resampler.premultiply(source, parallelism);
+		int[][] turned = turn == 0 ? input : turn == 1 ? Rotations.transpose(input, false, true, parallelism) : turn == 2 ? Rotations.rotate180(input) : Rotations.transpose(input, true, false, parallelism);
+		int originX = turn == 1 ? 1 - srcHeight : turn == 2 ? 1 - srcWidth : 0;
+		int originY = turn == 2 ? 1 - srcHeight : turn == 3 ? 1 - srcWidth : 0;
+		int turnSin = turn == 1 ? 1 : turn == 3 ? -1 : 0;
+		int turnCos = turn == 0 ? 1 : turn == 2 ? -1 : 0;
+		double c2 = turnCos * offsetX - turnSin * offsetY - originX;
+		double shiftY = turnSin * offsetX + turnCos * offsetY - originY;
+		
+		double alpha = Math.sin(rest);
+		double beta = -Math.tan(rest / 2.0D);
+		double c1 = shiftY - beta * c2;
+		
+		// Rows of the two intermediate images that are needed by the last shear
+		int firstRow = (int)Math.floor(Math.min(0.0D, beta * (targetWidth - 1)));
+		int lastRow = (int)Math.ceil(targetHeight - 1 + Math.max(0.0D, beta * (targetWidth - 1))) + 1;
+		int rows = lastRow - firstRow + 1;
+		
+		// Columns of the first intermediate image that are needed by the second shear and can contain anything else than transparent pixels
+		double reachFirst = c2 + alpha * (alpha > 0 ? firstRow : lastRow);
+		double reachLast = targetWidth - 1 + c2 + alpha * (alpha > 0 ? lastRow : firstRow);
+		int firstColumn = (int)Math.max(0, Math.floor(reachFirst));
+		int lastColumn = (int)Math.min(turned.length - 1, Math.ceil(reachLast) + 1);
+		int columns = lastColumn - firstColumn + 1;
+		
+		// The source does not reach into the target
+		if(columns < 1) {
+			
+			return;
+		}
+		
+		// 1. shear: A(x, y) = turned(x, y + beta * x + c1)
+		// The images are stored column by column, but the 2. shear moves rows. So A is written transposed and B is read transposed,
+		// tile by tile, which lets all three shears run through whole arrays in order without any extra copy.
+		int[][] rowsOfA = new int[rows][columns];
+		
+		Parallel.run(rows, (long)rows * columns, parallelism, (from, to) -> {
+			
+			for(int blockY = from; blockY < to; blockY += Rotations.BLOCK_SIZE) {
+				
+				int endY = Math.min(blockY + Rotations.BLOCK_SIZE, to);
+				
+				for(int column = 0; column < columns; column++) {
+					
+					int x = firstColumn + column;
+					int[] srcColumn = turned[x];
+					long shift = Math.round((beta * x + c1) * Rotations.FIXED_ONE);
+					int offset = firstRow + (int)(shift >> 32);
+					int weight = (int)(shift >>> 24) & 0xFF;
+					int start = Math.max(blockY, Math.min(endY, -offset));
+					int end = Math.max(start, Math.min(endY, srcColumn.length - 1 - offset));
+					
+					for(int row = blockY; row < start; row++) {
+						
+						rowsOfA[row][column] = Rotations.shifted(srcColumn, row + offset, weight);
+					}
+					
+					for(int row = start; row < end; row++) {
+						
+						rowsOfA[row][column] = Utils.interpolateLinear(srcColumn[row + offset], srcColumn[row + offset + 1], weight);
+					}
+					
+					for(int row = end; row < endY; row++) {
+						
+						rowsOfA[row][column] = Rotations.shifted(srcColumn, row + offset, weight);
+					}
+				}
+			}
+		});
+		
+		// 2. shear: B(x, y) = A(x + alpha * y + c2, y)
+		int[][] rowsOfB = new int[rows][targetWidth];
+		
+		Parallel.run(rows, (long)rows * targetWidth, parallelism, (from, to) -> {
+			
+			for(int row = from; row < to; row++) {
+				
+				long shift = Math.round((alpha * (firstRow + row) + c2 - firstColumn) * Rotations.FIXED_ONE);
+				Rotations.shift(rowsOfA[row], rowsOfB[row], (int)(shift >> 32), (int)(shift >>> 24) & 0xFF);
+			}
+		});
+		
+		// 3. shear: target(x, y) = B(x, y + beta * x)
+		// The rows of B were chosen so that both neighbours of every target pixel exist.
+		Parallel.run(targetWidth, (long)targetWidth * targetHeight, parallelism, (from, to) -> {
+			
+			for(int blockY = 0; blockY < targetHeight; blockY += Rotations.BLOCK_SIZE) {
+				
+				int endY = Math.min(blockY + Rotations.BLOCK_SIZE, targetHeight);
+				
+				for(int x = from; x < to; x++) {
+					
+					int[] targetColumn = target[x];
+					long shift = Math.round(beta * x * Rotations.FIXED_ONE);
+					int offset = (int)(shift >> 32) - firstRow;
+					int weight = (int)(shift >>> 24) & 0xFF;
+					
+					for(int y = blockY; y < endY; y++) {
+						
+						targetColumn[y] = Resampler.unpremultiply(Utils.interpolateLinear(rowsOfB[y + offset][x], rowsOfB[y + offset + 1][x], weight));
+					}
+				}
+			}
+		});
+	}
+	
+	private static final int shifted(int[] source, int position, int weight) {
+		
+		// Pixels outside of the source are transparent
+		int pixelA = position >= 0 && position < source.length ? source[position] : 0;
+		int pixelB = position + 1 >= 0 && position + 1 < source.length ? source[position + 1] : 0;
+		return Utils.interpolateLinear(pixelA, pixelB, weight);
+	}
+	
+	private static final void shift(int[] source, int[] target, int offset, int weight) {
+		
+		// target[i] lies between source[i + offset] and source[i + offset + 1]
+		int start = Math.max(0, Math.min(target.length, -offset));
+		int end = Math.max(start, Math.min(target.length, source.length - 1 - offset));
+		
+		for(int index = 0; index < start; index++) {
+			
+			target[index] = Rotations.shifted(source, index + offset, weight);
+		}
+		
+		for(int index = start; index < end; index++) {
+			
+			target[index] = Utils.interpolateLinear(source[index + offset], source[index + offset + 1], weight);
+		}
+		
+		for(int index = end; index < target.length; index++) {
+			
+			target[index] = Rotations.shifted(source, index + offset, weight);
+		}
+	}
+}
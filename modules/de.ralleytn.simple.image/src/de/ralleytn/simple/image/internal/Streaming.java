@@ -0,0 +1,188 @@
+package de.ralleytn.simple.image.internal;
+
+import java.io.IOException;
+
+import de.ralleytn.simple.image.ScaleAlgorithm;
+
+public final class Streaming {
+	
+	private Streaming() {}
+	
+	// Marks a scale algorithm that can also be calculated row by row with exactly the same result
+	public static final ScaleAlgorithm streamable(ScaleAlgorithm algorithm, Factory factory) {
+		
+		return new Algorithm(algorithm, factory);
+	}
+	
+	public static final Factory getFactory(ScaleAlgorithm algorithm) {
+		
+		return algorithm instanceof Algorithm ? ((Algorithm)algorithm).factory : null;
+	}
+	
+	private static final int[] indices(int srcSize, int targetSize) {
+		
+		int[] indices = new int[targetSize];
+		
+		for(int index = 0; index < targetSize; index++) {
+			
+			indices[index] = (int)((long)index * srcSize / targetSize);
+		}
+		
+		return indices;
+	}
+	
+	@FunctionalInterface
+	public static interface Output {
+		
+		public void write(int[] row) throws IOException;
+	}
+	
+	// Receives the rows of the source image from top to bottom and writes each target row as soon as all of its source rows are known
+	@FunctionalInterface
+	public static interface Scaler {
+		
+		public void add(int[] row) throws IOException;
+	}
+	
+	@FunctionalInterface
+	public static interface Factory {
+		
+		public Scaler open(int srcWidth, int srcHeight, int targetWidth, int targetHeight, Output output);
+	}
+	
+	private static final class Algorithm implements ScaleAlgorithm {
+		
+		private final ScaleAlgorithm algorithm;
+		private final Factory factory;
+		
+		private Algorithm(ScaleAlgorithm algorithm, Factory factory) {
+			
+			this.algorithm = algorithm;
+			this.factory = factory;
+		}
+		
+		@Override
+		public void calc(int[][] source, int[][] target) {
+			
+			this.algorithm.calc(source, target);
+		}
+		
+		@Override
+		public ScaleAlgorithm withParallelism(int parallelism) {
+			
+			return new Algorithm(this.algorithm.withParallelism(parallelism), this.factory);
+		}
+	}
+	
+	// Same source positions as SimpleImage.SCALE_NEAREST_NEIGHBOUR
+	public static final class Nearest implements Scaler {
+		
+		private final int[] srcColumns;
+		private final int[] srcRows;
+		private final int[] target;
+		private final Output output;
+		private int srcY;
+		private int targetY;
+		
+		public Nearest(int srcWidth, int srcHeight, int targetWidth, int targetHeight, Output output) {
+			
+			this.srcColumns = Streaming.indices(srcWidth, targetWidth);
+			this.srcRows = Streaming.indices(srcHeight, targetHeight);
+			this.target = new int[targetWidth];
+			this.output = output;
+		}
+		
+		@Override
+		public void add(int[] row) throws IOException {
+			
+			boolean gathered = false;
+			
+			// Target rows that come from the same source row are only gathered once
+			while(this.targetY < this.srcRows.length && this.srcRows[this.targetY] == this.srcY) {
+				
+				if(!gathered) {
+					
+					for(int targetX = 0; targetX < this.target.length; targetX++) {
+						
+						this.target[targetX] = row[this.srcColumns[targetX]];
+					}
+					
+					gathered = true;
+				}
+				
+				this.output.write(this.target);
+				this.targetY++;
+			}
+			
+			this.srcY++;
+		}
+	}
+	
+	// Same source positions and weights as SimpleImage.SCALE_BILINEAR_INTERPOLATION; only the last two source rows are kept
+	public static final class Bilinear implements Scaler {
+		
+		private final int srcHeight;
+		private final int targetHeight;
+		private final int[] srcColumns1;
+		private final int[] srcColumns2;
+		private final int[] weightsX;
+		private final int[] target;
+		private final Output output;
+		private final int[] previous;
+		private int srcY;
+		private int targetY;
+		
+		public Bilinear(int srcWidth, int srcHeight, int targetWidth, int targetHeight, Output output) {
+			
+			this.srcHeight = srcHeight;
+			this.targetHeight = targetHeight;
+			this.srcColumns1 = new int[targetWidth];
+			this.srcColumns2 = new int[targetWidth];
+			this.weightsX = new int[targetWidth];
+			this.target = new int[targetWidth];
+			this.previous = new int[srcWidth];
+			this.output = output;
+			
+			for(int targetX = 0; targetX < targetWidth; targetX++) {
+				
+				long position = (long)targetX * srcWidth * 256 / targetWidth;
+				this.srcColumns1[targetX] = (int)(position >> 8);
+				this.srcColumns2[targetX] = Math.min(this.srcColumns1[targetX] + 1, srcWidth - 1);
+				this.weightsX[targetX] = (int)(position & 0xFF);
+			}
+		}
+		
+		@Override
+		public void add(int[] row) throws IOException {
+			
+			while(this.targetY < this.targetHeight) {
+				
+				long position = (long)this.targetY * this.srcHeight * 256 / this.targetHeight;
+				int srcY1 = (int)(position >> 8);
+				int srcY2 = Math.min(srcY1 + 1, this.srcHeight - 1);
+				
+				if(srcY2 != this.srcY) {
+					
+					break;
+				}
+				
+				int[] row1 = srcY1 == this.srcY ? row : this.previous;
+				int weightY = (int)(position & 0xFF);
+				
+				for(int targetX = 0; targetX < this.target.length; targetX++) {
+					
+					int x1 = this.srcColumns1[targetX];
+					int x2 = this.srcColumns2[targetX];
+					this.target[targetX] = Utils.interpolateBilinear(row1[x1], row1[x2], row[x1], row[x2], this.weightsX[targetX], weightY);
+				}
+				
+				this.output.write(this.target);
+				this.targetY++;
+			}
+			
+			// The source might reuse its row array, so the row has to be copied
+			System.arraycopy(row, 0, this.previous, 0, this.previous.length);
+			this.srcY++;
+		}
+	}
+}
@@ -3,6 +3,9 @@ package de.ralleytn.simple.image.internal;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+
+import de.ralleytn.simple.image.ConvolutionFilter;
 
 public final class Utils {
 
@@ -14,12 +17,19 @@ public final class Utils {
 		int width = imageToRead.getWidth();
 		int height = imageToRead.getHeight();
 		int[][] data = new int[width][height];
+		int[] row = new int[width];
+		WritableRaster raster = imageToRead.getRaster();
+		
+		// The converted image is always TYPE_INT_ARGB, so the raster already contains the pixels in the format we need.
+		// Reading whole rows is a lot faster than calling getRGB(x, y) for every pixel.
 		
-		for(int x = 0; x < width; x++) {
+		for(int y = 0; y < height; y++) {
+			
+			raster.getDataElements(0, y, width, 1, row);
 			
-			for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
 				
-				data[x][y] = imageToRead.getRGB(x, y);
+				data[x][y] = row[x];
 			}
 		}
 		
@@ -51,6 +61,25 @@ public final class Utils {
 		return posX >= boundsX && posX < boundsX + boundsWidth && posY >= boundsY && posY < boundsY + boundsHeight;
 	}
 	
+	public static final int edge(int position, int size, int edgeCondition) {
+		
+		// Returns the position of the pixel that is used for a position that might be outside of the image, or -1 if there is none
+		if(position >= 0 && position < size) {
+			
+			return position;
+		
+		} else if(edgeCondition == ConvolutionFilter.EDGE_REPEAT) {
+			
+			return Math.floorMod(position, size);
+		
+		} else if(edgeCondition == ConvolutionFilter.EDGE_CONTINUE) {
+			
+			return position < 0 ? 0 : size - 1;
+		}
+		
+		return -1;
+	}
+	
 	public static final int max(int red, int green, int blue) {
 		
 		return Math.max(Math.max(red, green), blue);
@@ -61,21 +90,33 @@ public final class Utils {
 		return Math.min(Math.min(red, green), blue);
 	}
 	
-	public static final int interpolateColorChannelBilinear(int pixelA, int pixelB, int pixelC, int pixelD, float diffX, float diffY, int channel) {
+	public static final int interpolateLinear(int pixelA, int pixelB, int weight) {
+		
+		// Same lanes as in interpolateBilinear
+		int inverse = 256 - weight;
+		int redBlue = (((pixelA & 0x00FF00FF) * inverse + (pixelB & 0x00FF00FF) * weight) >>> 8) & 0x00FF00FF;
+		int alphaGreen = (((pixelA >>> 8) & 0x00FF00FF) * inverse + ((pixelB >>> 8) & 0x00FF00FF) * weight) & 0xFF00FF00;
+		
+		return alphaGreen | redBlue;
+	}
+	
+	public static final int interpolateBilinear(int pixelA, int pixelB, int pixelC, int pixelD, int weightX, int weightY) {
+		
+		// The weights are 8 bit fixed point numbers (0 - 255).
+		// Two channels are interpolated at once, each one in its own 16 bit lane of an int.
+		// A lane can never overflow because the two weights of an interpolation always add up to 256.
 		
-		float diffX2 = 1.0F - diffX;
-		float diffY2 = 1.0F - diffY;
+		int inverseX = 256 - weightX;
+		int inverseY = 256 - weightY;
 		
-		int pixelAChannel = (pixelA >> channel) & 0xFF;
-		int pixelBChannel = (pixelB >> channel) & 0xFF;
-		int pixelCChannel = (pixelC >> channel) & 0xFF;
-		int pixelDChannel = (pixelD >> channel) & 0xFF;
+		int topRB = (((pixelA & 0x00FF00FF) * inverseX + (pixelB & 0x00FF00FF) * weightX) >>> 8) & 0x00FF00FF;
+		int topAG = ((((pixelA >>> 8) & 0x00FF00FF) * inverseX + ((pixelB >>> 8) & 0x00FF00FF) * weightX) >>> 8) & 0x00FF00FF;
+		int bottomRB = (((pixelC & 0x00FF00FF) * inverseX + (pixelD & 0x00FF00FF) * weightX) >>> 8) & 0x00FF00FF;
+		int bottomAG = ((((pixelC >>> 8) & 0x00FF00FF) * inverseX + ((pixelD >>> 8) & 0x00FF00FF) * weightX) >>> 8) & 0x00FF00FF;
 		
-		float pixelAChannelPart = pixelAChannel * diffX2 * diffY2;
-		float pixelBChannelPart = pixelBChannel * diffX * diffY2;
-		float pixelCChannelPart = pixelCChannel * diffX2 * diffY;
-		float pixelDChannelPart = pixelDChannel * diffX * diffY;
+		int redBlue = ((topRB * inverseY + bottomRB * weightY) >>> 8) & 0x00FF00FF;
+		int alphaGreen = (topAG * inverseY + bottomAG * weightY) & 0xFF00FF00;
 		
-		return (int)(pixelAChannelPart + pixelBChannelPart + pixelCChannelPart + pixelDChannelPart);
+		return alphaGreen | redBlue;
 	}
 }
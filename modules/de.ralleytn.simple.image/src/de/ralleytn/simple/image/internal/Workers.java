@@ -0,0 +1,52 @@
+package de.ralleytn.simple.image.internal;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Workers {
+	
+	private static final Executor IO = Workers.createIOExecutor();
+	private static final ExecutorService CPU = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), Workers.createThreadFactory("SimpleImage-CPU-"));
+	
+	private Workers() {}
+	
+	public static final Executor io() {
+		
+		return Workers.IO;
+	}
+	
+	public static final Executor cpu() {
+		
+		return Workers.CPU;
+	}
+	
+	private static final Executor createIOExecutor() {
+		
+		// Virtual threads only exist since Java 21. On older runtimes we fall back to a cached pool
+		// which also creates one thread per concurrent task but reuses idle ones.
+		
+		try {
+			
+			return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		
+		} catch(ReflectiveOperationException exception) {
+			
+			return Executors.newCachedThreadPool(Workers.createThreadFactory("SimpleImage-IO-"));
+		}
+	}
+	
+	private static final ThreadFactory createThreadFactory(String prefix) {
+		
+		AtomicInteger counter = new AtomicInteger();
+		
+		return runnable -> {
+			
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}